@@ -0,0 +1,226 @@
+package actions;
+
+import common.Constants;
+import fileio.ActionInputData;
+import org.json.simple.JSONValue;
+import utils.LatencyHistogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts of the actions of a run, grouped by the
+ * kind of the action: the type and the subtype of the action, and the criteria
+ * for the queries (for example "command/view", "query/shows/ratings" or
+ * "recommendation/popular").
+ * <p>
+ * The metrics are recorded by {@link ActionsHandler#executeAction(ActionInputData)}
+ * and by the {@link MessageWriter} when they are attached to the database of the
+ * run, and may be recorded from several threads. They are written as a JSON
+ * report when they are closed and, if an interval is set, periodically while
+ * the actions are executed.
+ */
+public final class ActionMetrics implements Closeable {
+
+    /**
+     * The percentiles written in the report.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The metrics of one kind of action.
+     */
+    private static final class Entry {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    }
+
+    /* entries by action type, subtype and criteria, so no key is built per action */
+    private final Map<String, Map<String, Map<String, Entry>>> entries =
+            new ConcurrentHashMap<>();
+    private final long startTime = System.nanoTime();
+    private final Path reportPath;
+    private final ScheduledExecutorService reporter;
+
+    /**
+     * Creates the metrics of a run.
+     *
+     * @param reportPath the file of the report
+     * @param intervalMillis the interval between two reports written during the
+     *                       run, or 0 to write the report only when closed
+     */
+    public ActionMetrics(final Path reportPath, final long intervalMillis) {
+        this.reportPath = reportPath;
+        if (intervalMillis > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-report");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleWithFixedDelay(this::writeReportQuietly, intervalMillis,
+                    intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            reporter = null;
+        }
+    }
+
+    /**
+     * Creates the metrics of a run if the {@link Constants#METRICS} run option
+     * is set. The report is written in the directory given by the option, in a
+     * file with the name of the output file of the run.
+     *
+     * @param outputPath the output file of the run
+     * @return the metrics, or null if the option is not set
+     * @throws IOException in case of exceptions to creating the directory
+     */
+    public static ActionMetrics fromOptions(final String outputPath) throws IOException {
+        String directory = System.getProperty(Constants.METRICS);
+        if (directory == null) {
+            return null;
+        }
+
+        Files.createDirectories(Path.of(directory));
+        return new ActionMetrics(Path.of(directory, Path.of(outputPath).getFileName().toString()),
+                Long.getLong(Constants.METRICS_INTERVAL_MILLIS, 0));
+    }
+
+    /**
+     * Records the execution time of an action.
+     *
+     * @param action the executed action
+     * @param nanos the execution time, in nanoseconds
+     */
+    public void record(final ActionInputData action, final long nanos) {
+        entry(action).latency.record(nanos);
+    }
+
+    /**
+     * Counts an error outcome of an action.
+     *
+     * @param action the action
+     * @param outcome the name of the error
+     */
+    public void recordError(final ActionInputData action, final String outcome) {
+        entry(action).errors.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Builds the JSON report of the metrics recorded so far. The latencies are
+     * given in nanoseconds.
+     *
+     * @return the report
+     */
+    public String report() {
+        Map<String, Entry> sorted = new TreeMap<>();
+        entries.forEach((type, subtypes) -> subtypes.forEach((subtype, criteria) ->
+                criteria.forEach((name, entry) -> sorted.put(name.isEmpty()
+                        ? type + "/" + subtype : type + "/" + subtype + "/" + name, entry))));
+
+        long actions = 0;
+        long errors = 0;
+        StringBuilder kinds = new StringBuilder();
+        for (Map.Entry<String, Entry> kind : sorted.entrySet()) {
+            LatencyHistogram latency = kind.getValue().latency;
+            actions += latency.getCount();
+
+            if (kinds.length() > 0) {
+                kinds.append(", ");
+            }
+            appendKey(kinds, kind.getKey()).append('{');
+            appendKey(kinds, "count").append(latency.getCount());
+            appendKey(kinds.append(", "), "mean_ns").append(Math.round(latency.getMean()));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                appendKey(kinds.append(", "), PERCENTILE_NAMES[i] + "_ns")
+                        .append(latency.getPercentile(PERCENTILES[i]));
+            }
+            appendKey(kinds.append(", "), "max_ns").append(latency.getMax());
+
+            appendKey(kinds.append(", "), "errors").append('{');
+            boolean first = true;
+            for (Map.Entry<String, LongAdder> error
+                    : new TreeMap<>(kind.getValue().errors).entrySet()) {
+                if (!first) {
+                    kinds.append(", ");
+                }
+                first = false;
+                appendKey(kinds, error.getKey()).append(error.getValue().sum());
+                errors += error.getValue().sum();
+            }
+            kinds.append("}}");
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        StringBuilder report = new StringBuilder("{");
+        appendKey(report, "elapsed_ms").append(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        appendKey(report.append(", "), "actions").append(actions);
+        appendKey(report.append(", "), "errors").append(errors);
+        appendKey(report.append(", "), "actions_per_second")
+                .append(elapsed == 0 ? 0 : Math.round(actions * NANOS_PER_SECOND / elapsed));
+        appendKey(report.append(", "), "kinds").append('{').append(kinds).append("}");
+        return report.append("}\n").toString();
+    }
+
+    /**
+     * Writes the report to its file. The file is replaced at once, so a reader
+     * never sees a partial report.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeReport() throws IOException {
+        Path temporary = reportPath.resolveSibling(reportPath.getFileName() + ".tmp");
+        Files.writeString(temporary, report(), StandardCharsets.UTF_8);
+        Files.move(temporary, reportPath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Stops the periodic reports and writes the final report.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        writeReport();
+    }
+
+    private void writeReportQuietly() {
+        try {
+            writeReport();
+        } catch (IOException e) {
+            /* a failed periodic report is replaced by the next one */
+        }
+    }
+
+    private Entry entry(final ActionInputData action) {
+        String type = String.valueOf(action.getActionType());
+        boolean query = type.equals(Constants.QUERY);
+        String subtype = String.valueOf(query ? action.getObjectType() : action.getType());
+        String criteria = query ? String.valueOf(action.getCriteria()) : "";
+
+        Map<String, Entry> byCriteria = entries
+                .computeIfAbsent(type, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(subtype, key -> new ConcurrentHashMap<>());
+        Entry entry = byCriteria.get(criteria);
+        return entry != null ? entry : byCriteria.computeIfAbsent(criteria, key -> new Entry());
+    }
+
+    private static StringBuilder appendKey(final StringBuilder builder, final String key) {
+        return builder.append('"').append(JSONValue.escape(key)).append("\": ");
+    }
+}
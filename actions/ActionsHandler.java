@@ -1,9 +1,9 @@
 package actions;
 
+import common.Constants;
 import fileio.ActionInputData;
-import fileio.Writer;
+import fileio.ResultWriter;
 import main.Database;
-import org.json.simple.JSONArray;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -11,73 +11,143 @@ import java.util.List;
 
 /**
  * Takes every action from input and calls the according method.
+ * <p>
+ * The state of a run (the actions, the result writer and the database) belongs
+ * to the handler, so several runs can be executed at the same time. The handlers
+ * of each action type are created by the run handler and share its state.
  */
 public class ActionsHandler {
 
-    private static List<ActionInputData> actions;
-    private static Writer fileWriter;
-    private static JSONArray jsonArray;
-    private static Database database;
+    private final List<ActionInputData> actions;
+    private final ResultWriter resultWriter;
+    private final Database database;
+    private final MessageWriter messageWriter;
+    private final Commands commands;
+    private final Queries queries;
+    private final Recommendations recommendations;
 
     public ActionsHandler(final ArrayList<ActionInputData> actions,
-                          final Writer fileWriter, final JSONArray jsonArray,
-                          final Database database) {
-        ActionsHandler.actions = actions;
-        ActionsHandler.fileWriter = fileWriter;
-        ActionsHandler.jsonArray = jsonArray;
-        ActionsHandler.database = database;
+                          final ResultWriter resultWriter, final Database database) {
+        this.actions = actions;
+        this.resultWriter = resultWriter;
+        this.database = database;
+        /* the message writer is created first, so the other handlers receive it */
+        this.messageWriter = new MessageWriter(this);
+        this.commands = new Commands(this);
+        this.queries = new Queries(this);
+        this.recommendations = new Recommendations(this);
     }
 
     /**
-     * Matches each action with its type and calls the proper method.
+     * Creates another handler on the database of the given run, which writes
+     * its results to another writer. It has no actions of its own.
+     *
+     * @param handler the handler of the run
+     * @param resultWriter the writer of the results of the new handler
+     */
+    ActionsHandler(final ActionsHandler handler, final ResultWriter resultWriter) {
+        this(new ArrayList<>(), resultWriter, handler.database);
+    }
+
+    /**
+     * Creates a handler of an action type, with the state of the given run handler.
+     *
+     * @param handler the handler of the run
+     */
+    protected ActionsHandler(final ActionsHandler handler) {
+        this.actions = handler.actions;
+        this.resultWriter = handler.resultWriter;
+        this.database = handler.database;
+        this.messageWriter = handler.messageWriter;
+        this.commands = handler.commands;
+        this.queries = handler.queries;
+        this.recommendations = handler.recommendations;
+    }
+
+    /**
+     * Executes every action, in order. If the parallel queries option is set,
+     * the consecutive queries and recommendations are evaluated in parallel.
      */
     public final void executeActions() throws IOException {
+        int threads = Integer.getInteger(Constants.PARALLEL_QUERIES, 1);
+        if (threads > 1) {
+            new ReadOnlyBatchExecutor(this, threads).execute(actions);
+            return;
+        }
+
         for (ActionInputData currentAction : actions) {
-            switch (currentAction.getActionType()) {
-                case "command":
-                    switch (currentAction.getType()) {
-                        case "view" -> Commands.view(currentAction);
-                        case "favorite" -> Commands.favorite(currentAction);
-                        case "rating" -> Commands.rating(currentAction);
-                        default -> { }
-                    }
-                    break;
-                case "query":
-                    switch (currentAction.getObjectType()) {
-                        case "users" -> Queries.user(currentAction);
-                        case "shows", "movies" -> Queries.show(currentAction);
-                        case "actors" -> Queries.actor(currentAction);
-                        default -> { }
-                    }
-                    break;
-                case "recommendation":
-                    switch (currentAction.getType()) {
-                        case "standard" -> Recommendations.standard(currentAction);
-                        case "best_unseen" -> Recommendations.bestUnseen(currentAction);
-                        case "popular" -> Recommendations.popular(currentAction);
-                        case "favorite" -> Recommendations.favorite(currentAction);
-                        case "search" -> Recommendations.search(currentAction);
-                        default -> { }
-                    }
-                    break;
-                default:
-            }
+            executeAction(currentAction);
         }
     }
 
-    public static List<ActionInputData> getActions() {
-        return actions;
+    /**
+     * Executes an action. Its execution time is recorded in the metrics of the
+     * database, if there are any.
+     *
+     * @param currentAction the action to be executed
+     */
+    public final void executeAction(final ActionInputData currentAction) throws IOException {
+        ActionMetrics metrics = database.getMetrics();
+        if (metrics == null) {
+            dispatch(currentAction);
+            return;
+        }
+
+        long start = System.nanoTime();
+        dispatch(currentAction);
+        metrics.record(currentAction, System.nanoTime() - start);
     }
 
-    public static Writer getFileWriter() {
-        return fileWriter;
+    /**
+     * Matches the action with its type and calls the proper method.
+     *
+     * @param currentAction the action to be executed
+     */
+    private void dispatch(final ActionInputData currentAction) throws IOException {
+        switch (currentAction.getActionType()) {
+            case "command":
+                switch (currentAction.getType()) {
+                    case "view" -> commands.view(currentAction);
+                    case "favorite" -> commands.favorite(currentAction);
+                    case "rating" -> commands.rating(currentAction);
+                    default -> { }
+                }
+                break;
+            case "query":
+                switch (currentAction.getObjectType()) {
+                    case "users" -> queries.user(currentAction);
+                    case "shows", "movies" -> queries.show(currentAction);
+                    case "actors" -> queries.actor(currentAction);
+                    default -> { }
+                }
+                break;
+            case "recommendation":
+                switch (currentAction.getType()) {
+                    case "standard" -> recommendations.standard(currentAction);
+                    case "best_unseen" -> recommendations.bestUnseen(currentAction);
+                    case "popular" -> recommendations.popular(currentAction);
+                    case "favorite" -> recommendations.favorite(currentAction);
+                    case "search" -> recommendations.search(currentAction);
+                    default -> { }
+                }
+                break;
+            default:
+        }
     }
 
-    public static JSONArray getJsonArray() {
-        return jsonArray;
+    public final List<ActionInputData> getActions() {
+        return actions;
+    }
+
+    public final ResultWriter getResultWriter() {
+        return resultWriter;
     }
 
-    public static Database getDatabase() {
+    public final Database getDatabase() {
         return database;
     }
+
+    public final MessageWriter getMessageWriter() {
+        return messageWriter;
+    }
 }
@@ -0,0 +1,159 @@
+package actions;
+
+import common.Constants;
+import fileio.ActionInputData;
+import fileio.ResultBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes a sequence of commands on several threads. The commands are split
+ * by user, so the commands of a user are executed by the same thread, in their
+ * order, while the commands of different users run at the same time (guarded
+ * by the user locks, the index locks and the atomic counters of the shows).
+ * The results are written in the order of the commands.
+ * <p>
+ * The ratings of a show are also executed in their order, whichever users gave
+ * them: the grades of a show are summed in the order in which they are added,
+ * so this keeps its average, to the last bit, the one of the serial execution.
+ * A rating waits for the previous ratings of its show, which are executed
+ * first by the other threads; the earliest command which is not executed can
+ * always run, so the threads do not block each other forever. The final state
+ * is then the one of the serial execution, which benchmark.IngestStress checks.
+ */
+public final class CommandIngestor {
+
+    /**
+     * The turns of the ratings of the shows: turns[show] is the position, among
+     * the ratings of the show, of the rating which may be executed.
+     */
+    private static final class RatingTurns {
+        private final int[] turns;
+        private boolean aborted;
+
+        RatingTurns(final int shows) {
+            turns = new int[shows];
+        }
+
+        synchronized void await(final int show, final int turn) throws InterruptedException {
+            while (turns[show] != turn) {
+                if (aborted) {
+                    throw new CancellationException("Another command failed");
+                }
+                wait();
+            }
+        }
+
+        synchronized void advance(final int show) {
+            turns[show]++;
+            notifyAll();
+        }
+
+        /**
+         * Releases the threads which wait for ratings that will not be executed.
+         */
+        synchronized void abort() {
+            aborted = true;
+            notifyAll();
+        }
+    }
+
+    private final ActionsHandler handler;
+    private final int threads;
+
+    public CommandIngestor(final ActionsHandler handler, final int threads) {
+        this.handler = handler;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Executes the commands and writes their results through the handler.
+     *
+     * @param commands the commands, in the order in which they were received
+     * @throws IOException in case of exceptions to writing
+     */
+    public void ingest(final List<ActionInputData> commands) throws IOException {
+        List<List<Integer>> partitions = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        /* command i is the turns[i]-th rating of the show shows[i], or not a rating (-1) */
+        int[] shows = new int[commands.size()];
+        int[] turns = new int[commands.size()];
+        Map<String, Integer> showIndexes = new HashMap<>();
+        List<Integer> ratingCounts = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            ActionInputData command = commands.get(i);
+            if (!Constants.COMMAND.equals(command.getActionType())) {
+                throw new IllegalArgumentException("Not a command: action "
+                        + command.getActionId());
+            }
+            partitions.get(Math.floorMod(command.getUsername().hashCode(), threads)).add(i);
+
+            shows[i] = -1;
+            if ("rating".equals(command.getType())) {
+                shows[i] = showIndexes.computeIfAbsent(command.getTitle(), title -> {
+                    ratingCounts.add(0);
+                    return ratingCounts.size() - 1;
+                });
+                turns[i] = ratingCounts.get(shows[i]);
+                ratingCounts.set(shows[i], turns[i] + 1);
+            }
+        }
+        RatingTurns ratingTurns = new RatingTurns(ratingCounts.size());
+
+        /* the results of command i are the results [starts[i], ends[i]) of owners[i] */
+        ResultBuffer[] owners = new ResultBuffer[commands.size()];
+        int[] starts = new int[commands.size()];
+        int[] ends = new int[commands.size()];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (List<Integer> partition : partitions) {
+                tasks.add(executor.submit(() -> {
+                    ResultBuffer results = new ResultBuffer();
+                    ActionsHandler worker = new ActionsHandler(handler, results);
+                    boolean done = false;
+                    try {
+                        for (int index : partition) {
+                            starts[index] = results.size();
+                            if (shows[index] < 0) {
+                                worker.executeAction(commands.get(index));
+                            } else {
+                                ratingTurns.await(shows[index], turns[index]);
+                                try {
+                                    worker.executeAction(commands.get(index));
+                                } finally {
+                                    ratingTurns.advance(shows[index]);
+                                }
+                            }
+                            ends[index] = results.size();
+                            owners[index] = results;
+                        }
+                        done = true;
+                    } finally {
+                        if (!done) {
+                            ratingTurns.abort();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            ReadOnlyBatchExecutor.await(tasks);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < commands.size(); i++) {
+            owners[i].writeTo(starts[i], ends[i], handler.getResultWriter());
+        }
+    }
+}
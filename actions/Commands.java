@@ -1,26 +1,27 @@
 package actions;
 
+import actor.Actor;
 import entertainment.Movie;
-import entertainment.Season;
 import entertainment.Serial;
 import entertainment.Show;
 import fileio.ActionInputData;
-import fileio.Writer;
+import main.CommandLog;
 import main.Database;
+import main.ShowLeaderboards;
 import user.User;
-import org.json.simple.JSONArray;
 import utils.Utils;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Map;
 
-public abstract class Commands extends ActionsHandler {
+/**
+ * The actions which change the database. A command holds the lock of its user,
+ * so commands of different users may run at the same time. The applied commands
+ * are appended to the command log of the database, if it has one.
+ */
+public final class Commands extends ActionsHandler {
 
-    public Commands(final ArrayList<ActionInputData> actions,
-                    final Writer fileWriter, final JSONArray jsonArray,
-                    final Database database) {
-        super(actions, fileWriter, jsonArray, database);
+    Commands(final ActionsHandler handler) {
+        super(handler);
     }
 
     /**
@@ -31,29 +32,26 @@ public abstract class Commands extends ActionsHandler {
      *
      * @param currentAction the current view action and its details
      */
-    public static void view(final ActionInputData currentAction) throws IOException {
-        User user = Utils.stringToUser((ArrayList<User>) getDatabase().getUsersData(),
+    public void view(final ActionInputData currentAction) throws IOException {
+        User user = Utils.stringToUser(getDatabase().getUsersIndex(),
                 currentAction.getUsername());
 
         if (user != null) {
-            boolean check = false;
-            for (Map.Entry<Show, Integer> show : user.getHistory().entrySet()) {
-                if (show.getKey().getTitle().equals(currentAction.getTitle())) {
-                    user.getHistory().replace(show.getKey(), show.getValue() + 1);
-                    show.getKey().setNrOfViews(show.getKey().getNrOfViews() + 1);
-
-                    check = true;
-                    break;
+            synchronized (getDatabase().getUserLock(user)) {
+                Show show = Utils.stringToShow(getDatabase().getShowsIndex(),
+                        currentAction.getTitle());
+
+                CommandLog log = getDatabase().getCommandLog();
+                if (log != null) {
+                    log.checkFailure();
+                }
+                int views = applyView(getDatabase(), user, show);
+                if (log != null) {
+                    log.view(user, show);
                 }
-            }
 
-            if (!check) {
-                Show show = Utils.stringToShow((ArrayList<Show>) getDatabase().getShowsData(),
-                        currentAction.getTitle());
-                user.getHistory().put(show, 1);
+                getMessageWriter().wasViewed(currentAction, views);
             }
-
-            MessageWriter.wasViewed(currentAction, user);
         }
     }
 
@@ -64,30 +62,35 @@ public abstract class Commands extends ActionsHandler {
      *
      * @param currentAction the current favorite action and its details
      */
-    public static void favorite(final ActionInputData currentAction) throws IOException {
-        User user = Utils.stringToUser((ArrayList<User>) getDatabase().getUsersData(),
+    public void favorite(final ActionInputData currentAction) throws IOException {
+        User user = Utils.stringToUser(getDatabase().getUsersIndex(),
                 currentAction.getUsername());
 
         if (user != null) {
-            if (showIsNotSeen(user, currentAction)) {
-                MessageWriter.isNotSeen(currentAction);
-                return;
-            }
-
-            if (showAlreadyFavorite(user, currentAction)) {
-                MessageWriter.alreadyFavorite(currentAction);
-                return;
-            }
+            synchronized (getDatabase().getUserLock(user)) {
+                Show show = Utils.stringToShow(getDatabase().getShowsIndex(),
+                        currentAction.getTitle());
 
-            for (Map.Entry<Show, Integer> show : user.getHistory().entrySet()) {
-                if (show.getKey().getTitle().equals(currentAction.getTitle())) {
-                    user.getFavoriteMovies().add(show.getKey());
-                    show.getKey().setNrOfAddsAtFavorites(
-                            show.getKey().getNrOfAddsAtFavorites() + 1);
+                if (showIsNotSeen(user, show)) {
+                    getMessageWriter().isNotSeen(currentAction);
+                    return;
+                }
 
-                    MessageWriter.wasAddedAtFavorites(currentAction);
+                if (showAlreadyFavorite(user, show)) {
+                    getMessageWriter().alreadyFavorite(currentAction);
                     return;
                 }
+
+                CommandLog log = getDatabase().getCommandLog();
+                if (log != null) {
+                    log.checkFailure();
+                }
+                applyFavorite(getDatabase(), user, show);
+                if (log != null) {
+                    log.favorite(user, show);
+                }
+
+                getMessageWriter().wasAddedAtFavorites(currentAction);
             }
         }
     }
@@ -100,71 +103,123 @@ public abstract class Commands extends ActionsHandler {
      *
      * @param currentAction the current rating action and its details
      */
-    public static void rating(final ActionInputData currentAction) throws IOException {
-        Show show = Utils.stringToShow((ArrayList<Show>) getDatabase().getShowsData(),
+    public void rating(final ActionInputData currentAction) throws IOException {
+        Show show = Utils.stringToShow(getDatabase().getShowsIndex(),
                 currentAction.getTitle());
-        User user = Utils.stringToUser((ArrayList<User>) getDatabase().getUsersData(),
+        User user = Utils.stringToUser(getDatabase().getUsersIndex(),
                 currentAction.getUsername());
 
         if (user != null && show != null) {
-            if (showIsNotSeen(user, currentAction)) {
-                MessageWriter.isNotSeen(currentAction);
-                return;
-            }
-
-            if (showAlreadyRated(user, currentAction)) {
-                MessageWriter.alreadyRated(currentAction);
-                return;
-            }
+            synchronized (getDatabase().getUserLock(user)) {
+                if (showIsNotSeen(user, show)) {
+                    getMessageWriter().isNotSeen(currentAction);
+                    return;
+                }
 
-            if (currentAction.getSeasonNumber() == 0) {
-                /* it's a movie */
-                ((Movie) show).getRatings().add(currentAction.getGrade());
-            } else {
-                /* it's a serial */
-                Season season = ((Serial) show).getSeasons()
-                        .get(currentAction.getSeasonNumber() - 1);
-                season.getRatings().add(currentAction.getGrade());
-            }
+                if (showAlreadyRated(user, show, currentAction.getSeasonNumber())) {
+                    getMessageWriter().alreadyRated(currentAction);
+                    return;
+                }
 
-            user.getRatedShows().put(show, currentAction.getSeasonNumber());
-            user.setNumberOfRatings(user.getNumberOfRatings() + 1);
+                CommandLog log = getDatabase().getCommandLog();
+                if (log != null) {
+                    log.checkFailure();
+                }
+                /* the grades of a show are logged in the order in which they are
+                 * summed, so the replay gives the same averages */
+                synchronized (getDatabase().getRatingLock(show)) {
+                    applyRating(getDatabase(), user, show, currentAction.getSeasonNumber(),
+                            currentAction.getGrade());
+                    if (log != null) {
+                        log.rating(user, show, currentAction.getSeasonNumber(),
+                                currentAction.getGrade());
+                    }
+                }
 
-            MessageWriter.wasRated(currentAction);
+                getMessageWriter().wasRated(currentAction);
+            }
         }
     }
 
-    private static boolean showIsNotSeen(final User user,
-                                         final ActionInputData currentAction) {
-        for (Map.Entry<Show, Integer> entry : user.getHistory().entrySet()) {
-            if (entry.getKey().getTitle().equals(currentAction.getTitle())) {
-                return false;
-            }
+    /**
+     * Applies the effects of a view: the show is added to the history of the user
+     * and, if the user had already seen it, its number of views is increased.
+     * Also used to replay the command log.
+     *
+     * @param database the database of the user
+     * @param user the user
+     * @param show the viewed show (null for a title which is not in the database)
+     * @return the number of views of the show by the user
+     */
+    public static int applyView(final Database database, final User user, final Show show) {
+        boolean alreadySeen = user.hasSeen(show);
+        int views = user.addView(show);
+        if (alreadySeen && show != null) {
+            database.getLeaderboards().update(ShowLeaderboards.MOST_VIEWED, show,
+                    show::incrementNrOfViews);
         }
 
-        return true;
+        return views;
+    }
+
+    /**
+     * Applies the effects of a favorite command: the show is added to the
+     * favorites of the user and its number of adds at favorites is increased.
+     * Also used to replay the command log.
+     *
+     * @param database the database of the user
+     * @param user the user
+     * @param show the favorite show
+     */
+    public static void applyFavorite(final Database database, final User user,
+                                     final Show show) {
+        user.addFavorite(show);
+        database.getLeaderboards().update(ShowLeaderboards.FAVORITE, show,
+                show::incrementNrOfAddsAtFavorites);
     }
 
-    private static boolean showAlreadyFavorite(final User user,
-                                               final ActionInputData currentAction) {
-        for (Show show : user.getFavoriteMovies()) {
-            if (show.getTitle().equals(currentAction.getTitle())) {
-                return true;
+    /**
+     * Applies the effects of a rating: the grade is added to the show (or to the
+     * season of the serial), the averages of its cast are refreshed, and the show
+     * is marked as rated by the user. Also used to replay the command log.
+     *
+     * @param database the database of the user
+     * @param user the user
+     * @param show the rated show
+     * @param season the rated season (0 for a movie)
+     * @param grade the grade
+     */
+    public static void applyRating(final Database database, final User user, final Show show,
+                                   final int season, final double grade) {
+        database.getLeaderboards().update(ShowLeaderboards.RATINGS, show, () -> {
+            if (season == 0) {
+                /* it's a movie */
+                ((Movie) show).addRating(grade);
+            } else {
+                /* it's a serial */
+                ((Serial) show).addRating(season, grade);
             }
+        });
+
+        /* the average of the show changed, so the cast averages must follow */
+        for (Actor actor : show.getCast()) {
+            actor.refreshRatingAverage();
         }
 
-        return false;
+        user.addRatedShow(show, season);
+        user.setNumberOfRatings(user.getNumberOfRatings() + 1);
     }
 
-    private static boolean showAlreadyRated(final User user,
-                                            final ActionInputData currentAction) {
-        for (Map.Entry<Show, Integer> entry : user.getRatedShows().entrySet()) {
-            if (entry.getKey().getTitle().equals(currentAction.getTitle())
-                    && entry.getValue() == currentAction.getSeasonNumber()) {
-                return true;
-            }
-        }
+    private static boolean showIsNotSeen(final User user, final Show show) {
+        return show == null || !user.hasSeen(show);
+    }
+
+    private static boolean showAlreadyFavorite(final User user, final Show show) {
+        return user.isFavorite(show);
+    }
 
-        return false;
+    private static boolean showAlreadyRated(final User user, final Show show,
+                                            final int seasonNumber) {
+        return user.hasRated(show, seasonNumber);
     }
 }
@@ -1,26 +1,19 @@
 package actions;
 
-import entertainment.Show;
 import fileio.ActionInputData;
-import fileio.Writer;
-import main.Database;
-import user.User;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import utils.Utils;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.stream.Stream;
+import java.util.Collection;
 
-@SuppressWarnings("unchecked")
+public final class MessageWriter extends ActionsHandler {
 
-public abstract class MessageWriter extends ActionsHandler {
+    /**
+     * The buffer in which every message is built, reused between the actions
+     */
+    private final StringBuilder buffer = new StringBuilder();
 
-    public MessageWriter(final ArrayList<ActionInputData> actions,
-                         final Writer fileWriter,
-                         final JSONArray jsonArray, final Database database) {
-        super(actions, fileWriter, jsonArray, database);
+    MessageWriter(final ActionsHandler handler) {
+        super(handler);
     }
 
     /**
@@ -30,11 +23,11 @@ public abstract class MessageWriter extends ActionsHandler {
      * @param result the result of the action
      * @param <T> used for the genericity of the method
      */
-    public static <T> void queryResult(final ActionInputData action,
-                                       final Stream<T> result) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                "Query result: " + result.toList());
-        getJsonArray().add(jsonObject);
+    public <T> void queryResult(final ActionInputData action,
+                                final Collection<T> result) throws IOException {
+        StringBuilder message = message().append("Query result: ");
+        appendList(message, result);
+        write(action, message);
     }
 
     /**
@@ -46,29 +39,28 @@ public abstract class MessageWriter extends ActionsHandler {
      * @param result the result of the recommendation action
      * @param <T> used for the genericity of the method
      */
-    public static <T> void recommendationResult(final ActionInputData action,
-                                                final String recommendation,
-                                                final T result) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                recommendation + " result: " + result);
-        getJsonArray().add(jsonObject);
+    public <T> void recommendationResult(final ActionInputData action,
+                                         final String recommendation,
+                                         final T result) throws IOException {
+        StringBuilder message = message().append(recommendation).append(" result: ");
+        if (result instanceof Collection<?> list) {
+            appendList(message, list);
+        } else {
+            message.append(result);
+        }
+        write(action, message);
     }
 
     /**
      * Error message writer - the view command output
      *
      * @param action the current view action
-     * @param user the user who viewed the show
+     * @param views the total number of views of the show by the user
      */
-    public static void wasViewed(final ActionInputData action,
-                                 final User user) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                "success -> " + action.getTitle() + " was viewed with total views of " + user
-                        .getHistory()
-                        .get(Utils.stringToShow((ArrayList<Show>) getDatabase()
-                                .getShowsData(), action.getTitle()))
-        );
-        getJsonArray().add(jsonObject);
+    public void wasViewed(final ActionInputData action,
+                          final int views) throws IOException {
+        write(action, message().append("success -> ").append(action.getTitle())
+                .append(" was viewed with total views of ").append(views));
     }
 
     /**
@@ -76,10 +68,10 @@ public abstract class MessageWriter extends ActionsHandler {
      *
      * @param action the current action
      */
-    public static void isNotSeen(final ActionInputData action) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                "error -> " + action.getTitle() + " is not seen");
-        getJsonArray().add(jsonObject);
+    public void isNotSeen(final ActionInputData action) throws IOException {
+        countError(action, "not_seen");
+        write(action, message().append("error -> ").append(action.getTitle())
+                .append(" is not seen"));
     }
 
     /**
@@ -87,10 +79,10 @@ public abstract class MessageWriter extends ActionsHandler {
      *
      * @param action the current action
      */
-    public static void alreadyFavorite(final ActionInputData action) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                "error -> " + action.getTitle() + " is already in favourite list");
-        getJsonArray().add(jsonObject);
+    public void alreadyFavorite(final ActionInputData action) throws IOException {
+        countError(action, "already_favorite");
+        write(action, message().append("error -> ").append(action.getTitle())
+                .append(" is already in favourite list"));
     }
 
     /**
@@ -98,10 +90,10 @@ public abstract class MessageWriter extends ActionsHandler {
      *
      * @param action the current action
      */
-    public static void alreadyRated(final ActionInputData action) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                "error -> " + action.getTitle() + " has been already rated");
-        getJsonArray().add(jsonObject);
+    public void alreadyRated(final ActionInputData action) throws IOException {
+        countError(action, "already_rated");
+        write(action, message().append("error -> ").append(action.getTitle())
+                .append(" has been already rated"));
     }
 
     /**
@@ -109,10 +101,9 @@ public abstract class MessageWriter extends ActionsHandler {
      *
      * @param action the current action - favorite command
      */
-    public static void wasAddedAtFavorites(final ActionInputData action) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                "success -> " + action.getTitle() + " was added as favourite");
-        getJsonArray().add(jsonObject);
+    public void wasAddedAtFavorites(final ActionInputData action) throws IOException {
+        write(action, message().append("success -> ").append(action.getTitle())
+                .append(" was added as favourite"));
     }
 
     /**
@@ -120,11 +111,10 @@ public abstract class MessageWriter extends ActionsHandler {
      *
      * @param action the current action - rating command
      */
-    public static void wasRated(final ActionInputData action) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                "success -> " + action.getTitle() + " was rated with "
-                        + action.getGrade() + " by " + action.getUsername());
-        getJsonArray().add(jsonObject);
+    public void wasRated(final ActionInputData action) throws IOException {
+        write(action, message().append("success -> ").append(action.getTitle())
+                .append(" was rated with ").append(action.getGrade()).append(" by ")
+                .append(action.getUsername()));
     }
 
     /**
@@ -134,10 +124,50 @@ public abstract class MessageWriter extends ActionsHandler {
      * @param recommendation "XRecommendation" formatted string,
      *                       where X is the name of the recommendation
      */
-    public static void cannotBeApplied(final ActionInputData action,
-                                       final String recommendation) throws IOException {
-        JSONObject jsonObject = getFileWriter().writeFile(action.getActionId(), "",
-                recommendation + " cannot be applied!");
-        getJsonArray().add(jsonObject);
+    public void cannotBeApplied(final ActionInputData action,
+                                final String recommendation) throws IOException {
+        countError(action, "cannot_be_applied");
+        write(action, message().append(recommendation).append(" cannot be applied!"));
+    }
+
+    /**
+     * Counts an error outcome in the metrics of the database, if there are any.
+     */
+    private void countError(final ActionInputData action, final String outcome) {
+        ActionMetrics metrics = getDatabase().getMetrics();
+        if (metrics != null) {
+            metrics.recordError(action, outcome);
+        }
+    }
+
+    /**
+     * Clears the message buffer.
+     *
+     * @return the empty buffer
+     */
+    private StringBuilder message() {
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    /**
+     * Formats a list the same way as AbstractCollection.toString.
+     */
+    private static void appendList(final StringBuilder message, final Collection<?> list) {
+        message.append('[');
+        boolean first = true;
+        for (Object element : list) {
+            if (!first) {
+                message.append(", ");
+            }
+            first = false;
+            message.append(element);
+        }
+        message.append(']');
+    }
+
+    private void write(final ActionInputData action,
+                       final StringBuilder message) throws IOException {
+        getResultWriter().write(action.getActionId(), message);
     }
 }
@@ -1,98 +1,113 @@
 package actions;
 
 import actor.Actor;
+import actor.ActorsAwards;
 import common.Constants;
 import entertainment.Genre;
 import entertainment.Movie;
 import entertainment.Serial;
 import entertainment.Show;
 import fileio.ActionInputData;
-import fileio.Writer;
-import main.Database;
+import main.ActorWordIndex;
+import main.ShowLeaderboards;
 import user.User;
-import org.json.simple.JSONArray;
 import utils.Utils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
 
 import java.util.stream.Stream;
 
-public abstract class Queries extends ActionsHandler {
+public final class Queries extends ActionsHandler {
 
-    public Queries(final ArrayList<ActionInputData> actions, final Writer fileWriter,
-                   final JSONArray jsonArray, final Database database) {
-        super(actions, fileWriter, jsonArray, database);
+    Queries(final ActionsHandler handler) {
+        super(handler);
     }
 
     /**
-     * Generic method which takes any type of show-related query
-     * and filters and sorts the database accordingly.
+     * Generic method which takes any type of show-related query. If the query
+     * has a year filter, only the shows of that year (movies or serials) are
+     * filtered and sorted. Otherwise, the shows are taken in order from the database
+     * index of the query criteria and the first ones passing the genre filter are printed.
      *
      * @param currentAction the current show query
      */
-    public static void show(final ActionInputData currentAction) throws IOException {
-        Stream<Show> sortedShows = getDatabase().getShowsData().stream();
-
-        if (currentAction.getObjectType().equals("movies")) {
-            sortedShows = sortedShows.filter(show -> show instanceof Movie);
-        } else {
-            sortedShows = sortedShows.filter(show -> show instanceof Serial);
+    public void show(final ActionInputData currentAction) throws IOException {
+        ShowLeaderboards leaderboards = getDatabase().getLeaderboards();
+        boolean movies = currentAction.getObjectType().equals("movies");
+        Predicate<Show> filter = genreFilter(currentAction);
+
+        /* the year is parsed only once for the whole query */
+        String filterYear = currentAction.getFilters().get(Constants.YEAR_FILTER).get(0);
+        List<Show> candidates = null;
+        if (filterYear != null) {
+            candidates = getDatabase().getShowsByYear(Integer.parseInt(filterYear), movies);
         }
 
-        if (currentAction.getFilters().get(Constants.YEAR_FILTER).get(0) != null) {
-            String filterYear = currentAction.getFilters().get(Constants.YEAR_FILTER).get(0);
-            if (filterYear != null) {
-                sortedShows = sortedShows
-                        .filter(show -> show.getYear() == Integer.parseInt(filterYear));
+        if (!leaderboards.hasCriteria(currentAction.getCriteria())) {
+            /* not an indexed criteria - the shows keep the database order */
+            Stream<Show> sortedShows;
+            if (candidates != null) {
+                sortedShows = candidates.stream();
+            } else {
+                sortedShows = getDatabase().getShowsData().stream()
+                        .filter(show -> movies ? show instanceof Movie : show instanceof Serial);
             }
+            List<Show> result = Utils.topK(sortedShows.filter(filter), (o1, o2) -> 0,
+                    currentAction.getNumber());
+
+            getMessageWriter().queryResult(currentAction, result);
+            return;
         }
 
-        if (currentAction.getFilters().get(Constants.GENRE_FILTER).get(0) != null) {
-            Genre filterGenre = Utils
-                    .stringToGenre(currentAction.getFilters().get(Constants.GENRE_FILTER).get(0));
-            if (filterGenre != null) {
-                sortedShows = sortedShows.filter(show -> show.getGenres().contains(filterGenre));
-            } else {
-                sortedShows = Stream.empty();
+        boolean ascending = currentAction.getSortType().equals("asc");
+
+        if (candidates != null) {
+            Comparator<Show> comparator = ShowLeaderboards
+                    .getComparator(currentAction.getCriteria());
+            if (!ascending) {
+                comparator = comparator.reversed();
             }
+
+            Stream<Show> sortedShows = candidates.stream()
+                    .filter(show -> ShowLeaderboards.isRanked(currentAction.getCriteria(), show))
+                    .filter(filter);
+            List<Show> result = Utils.topK(sortedShows, comparator, currentAction.getNumber());
+
+            getMessageWriter().queryResult(currentAction, result);
+            return;
         }
 
-        Comparator<Show> comparator = ((o1, o2) -> 0);
-        switch (currentAction.getCriteria()) {
-            case "ratings" -> {
-                comparator = Comparator.comparing(Show::getRatingAverage)
-                        .thenComparing(Show::toString);
-                sortedShows = sortedShows.filter(show -> show.getRatingAverage() > 0);
-            }
-            case "favorite" -> {
-                comparator = Comparator.comparing(Show::getNrOfAddsAtFavorites)
-                        .thenComparing(Show::toString);
-                sortedShows = sortedShows.filter(show -> show.getNrOfAddsAtFavorites() > 0);
+        List<Show> result = new ArrayList<>();
+        leaderboards.walk(currentAction.getCriteria(), movies, ascending, show -> {
+            if (result.size() >= currentAction.getNumber()) {
+                return false;
             }
-            case "longest" -> {
-                comparator = Comparator.comparing(Show::getDuration)
-                        .thenComparing(Show::toString);
-                sortedShows = sortedShows.filter(show -> show.getDuration() > 0);
+            if (filter.test(show)) {
+                result.add(show);
             }
-            case "most_viewed" -> {
-                comparator = Comparator.comparing(Show::getNrOfViews)
-                        .thenComparing(Show::toString);
-                sortedShows = sortedShows.filter(show -> show.getNrOfViews() > 0);
+            return true;
+        });
+
+        getMessageWriter().queryResult(currentAction, result);
+    }
+
+    private static Predicate<Show> genreFilter(final ActionInputData currentAction) {
+        if (currentAction.getFilters().get(Constants.GENRE_FILTER).get(0) != null) {
+            Genre filterGenre = Utils
+                    .stringToGenre(currentAction.getFilters().get(Constants.GENRE_FILTER).get(0));
+            if (filterGenre != null) {
+                return show -> show.hasGenre(filterGenre);
             }
-            default -> { }
-        }
 
-        if (currentAction.getSortType().equals("asc")) {
-            sortedShows = sortedShows.sorted(comparator);
-        } else {
-            sortedShows = sortedShows.sorted(comparator.reversed());
+            return show -> false;
         }
 
-        sortedShows = sortedShows.limit(currentAction.getNumber());
-
-        MessageWriter.queryResult(currentAction, sortedShows);
+        return show -> true;
     }
 
     /**
@@ -101,23 +116,20 @@ public abstract class Queries extends ActionsHandler {
      *
      * @param currentAction the current user query
      */
-    public static void user(final ActionInputData currentAction) throws IOException {
+    public void user(final ActionInputData currentAction) throws IOException {
         Stream<User> sortedUsers = getDatabase().getUsersData().stream()
                 .filter(user -> user.getNumberOfRatings() > 0);
 
-        if (currentAction.getSortType().equals("asc")) {
-            sortedUsers = sortedUsers.sorted(Comparator
-                    .comparing(User::getNumberOfRatings)
-                    .thenComparing(User::toString));
-        } else {
-            sortedUsers = sortedUsers.sorted(Comparator
-                    .comparing(User::getNumberOfRatings)
-                    .thenComparing(User::toString).reversed());
+        Comparator<User> comparator = Comparator
+                .comparing(User::getNumberOfRatings)
+                .thenComparing(User::toString);
+        if (!currentAction.getSortType().equals("asc")) {
+            comparator = comparator.reversed();
         }
 
-        sortedUsers = sortedUsers.limit(currentAction.getNumber());
+        List<User> result = Utils.topK(sortedUsers, comparator, currentAction.getNumber());
 
-        MessageWriter.queryResult(currentAction, sortedUsers);
+        getMessageWriter().queryResult(currentAction, result);
     }
 
     /**
@@ -126,7 +138,7 @@ public abstract class Queries extends ActionsHandler {
      *
      * @param currentAction the current show query
      */
-    public static void actor(final ActionInputData currentAction) throws IOException {
+    public void actor(final ActionInputData currentAction) throws IOException {
         Stream<Actor> sortedActors = getDatabase().getActorsData().stream();
 
         Comparator<Actor> comparator = ((o1, o2) -> 0);
@@ -137,38 +149,63 @@ public abstract class Queries extends ActionsHandler {
                 sortedActors = sortedActors.filter(actor -> actor.getRatingAverage() > 0);
             }
             case "awards" -> {
-                comparator = Comparator.comparing(Actor::getNrOfAwards)
+                comparator = Comparator.comparingInt(Actor::getNrOfAwards)
                         .thenComparing(Actor::toString);
-                sortedActors = sortedActors.filter(actor -> actor.getNrOfAwards() > 0);
 
+                List<ActorsAwards> awards = new ArrayList<>();
                 for (String currentAward : currentAction
                         .getFilters().get(Constants.AWARDS_FILTER)) {
-                    sortedActors = sortedActors
-                            .filter(actor -> actor.getAwards()
-                                    .containsKey(Utils.stringToAwards(currentAward)));
+                    awards.add(Utils.stringToAwards(currentAward));
                 }
+                List<Actor> actors = getDatabase().getActorsData();
+                sortedActors = getDatabase().getActorAwardIndex().find(awards).stream()
+                        .mapToObj(actors::get);
             }
             case "filter_description" -> {
                 comparator = Comparator.comparing(Actor::toString);
-                for (String string : currentAction.getFilters().get(Constants.WORDS_FILTER)) {
-                    String currentWord = " " + string + " ";
-                    sortedActors = sortedActors
-                            .filter(actor -> actor.getCareerDescription().toLowerCase()
-                                    .replaceAll("[^a-zA-Z0-9]", " ")
-                                    .contains(currentWord.toLowerCase()));
-                }
+                sortedActors = filterByWords(currentAction.getFilters()
+                        .get(Constants.WORDS_FILTER));
             }
             default -> { }
         }
 
-        if (currentAction.getSortType().equals("asc")) {
-            sortedActors = sortedActors.sorted(comparator);
-        } else {
-            sortedActors = sortedActors.sorted(comparator.reversed());
+        if (!currentAction.getSortType().equals("asc")) {
+            comparator = comparator.reversed();
         }
 
-        sortedActors = sortedActors.limit(currentAction.getNumber());
+        List<Actor> result = Utils.topK(sortedActors, comparator, currentAction.getNumber());
+
+        getMessageWriter().queryResult(currentAction, result);
+    }
 
-        MessageWriter.queryResult(currentAction, sortedActors);
+    /**
+     * Selects the actors whose career descriptions contain every word. The words
+     * made of letters and digits are looked up in the word index of the database,
+     * and only the other words are checked on the descriptions of the found actors.
+     *
+     * @param words the words of the filter
+     * @return the selected actors, in the order of the database
+     */
+    private Stream<Actor> filterByWords(final List<String> words) {
+        List<String> tokens = new ArrayList<>();
+        List<String> scannedWords = new ArrayList<>();
+        for (String word : words) {
+            String token = ActorWordIndex.toToken(word);
+            if (token != null) {
+                tokens.add(token);
+            } else {
+                scannedWords.add(word);
+            }
+        }
+
+        List<Actor> actors = getDatabase().getActorsData();
+        Stream<Actor> selected = tokens.isEmpty() ? actors.stream()
+                : Arrays.stream(getDatabase().getActorWordIndex().find(tokens))
+                        .mapToObj(actors::get);
+        for (String word : scannedWords) {
+            selected = selected.filter(actor ->
+                    ActorWordIndex.matches(actor.getCareerDescription(), word));
+        }
+        return selected;
     }
 }
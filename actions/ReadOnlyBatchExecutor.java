@@ -0,0 +1,152 @@
+package actions;
+
+import common.Constants;
+import fileio.ActionInputData;
+import fileio.ResultBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes the actions of a run, evaluating in parallel every sequence of
+ * consecutive read-only actions (queries and recommendations).
+ * <p>
+ * Only the commands change the database, and a batch of read-only actions is
+ * finished before the next command starts, so every action of the batch sees
+ * the database left by the previous command, exactly as in a serial execution.
+ * Each worker thread has its own handler, whose results are buffered and then
+ * written in the order of the actions.
+ */
+final class ReadOnlyBatchExecutor {
+
+    /**
+     * A handler of the run, owned by one worker thread.
+     */
+    private static final class Worker {
+        private final ResultBuffer results = new ResultBuffer();
+        private final ActionsHandler handler;
+
+        Worker(final ActionsHandler runHandler) {
+            this.handler = new ActionsHandler(runHandler, results);
+        }
+    }
+
+    private final ActionsHandler handler;
+    private final int threads;
+    private final List<Worker> workers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Worker> worker;
+
+    ReadOnlyBatchExecutor(final ActionsHandler handler, final int threads) {
+        this.handler = handler;
+        this.threads = threads;
+        this.worker = ThreadLocal.withInitial(() -> {
+            Worker newWorker = new Worker(handler);
+            workers.add(newWorker);
+            return newWorker;
+        });
+    }
+
+    /**
+     * Checks if an action only reads the database.
+     *
+     * @param action the action
+     * @return true for queries and recommendations
+     */
+    static boolean isReadOnly(final ActionInputData action) {
+        return Constants.QUERY.equals(action.getActionType())
+                || Constants.RECOMMENDATION.equals(action.getActionType());
+    }
+
+    /**
+     * Executes the actions, writing their results in order.
+     *
+     * @param actions the actions of the run
+     * @throws IOException in case of exceptions to writing
+     */
+    void execute(final List<ActionInputData> actions) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<ActionInputData> batch = new ArrayList<>();
+            for (ActionInputData action : actions) {
+                if (isReadOnly(action)) {
+                    batch.add(action);
+                    continue;
+                }
+
+                executeBatch(executor, batch);
+                batch.clear();
+                handler.executeAction(action);
+            }
+            executeBatch(executor, batch);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void executeBatch(final ExecutorService executor,
+                              final List<ActionInputData> batch) throws IOException {
+        if (batch.size() <= 1) {
+            /* nothing to be gained from another thread */
+            for (ActionInputData action : batch) {
+                handler.executeAction(action);
+            }
+            return;
+        }
+
+        /* the results of action i are the results [starts[i], ends[i]) of owners[i] */
+        Worker[] owners = new Worker[batch.size()];
+        int[] starts = new int[batch.size()];
+        int[] ends = new int[batch.size()];
+        List<Future<?>> tasks = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            int index = i;
+            tasks.add(executor.submit(() -> {
+                Worker current = worker.get();
+                starts[index] = current.results.size();
+                current.handler.executeAction(batch.get(index));
+                ends[index] = current.results.size();
+                owners[index] = current;
+                return null;
+            }));
+        }
+
+        await(tasks);
+        for (int i = 0; i < batch.size(); i++) {
+            owners[i].results.writeTo(starts[i], ends[i], handler.getResultWriter());
+        }
+        for (Worker usedWorker : workers) {
+            usedWorker.results.clear();
+        }
+    }
+
+    /**
+     * Waits for every task, rethrowing the exception of the first failed one.
+     *
+     * @param tasks the tasks
+     * @throws IOException in case of exceptions to writing in a task
+     */
+    static void await(final List<Future<?>> tasks) throws IOException {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -3,10 +3,7 @@ package actions;
 import entertainment.Genre;
 import entertainment.Show;
 import fileio.ActionInputData;
-import fileio.Writer;
-import main.Database;
 import user.User;
-import org.json.simple.JSONArray;
 import utils.Utils;
 
 import java.io.IOException;
@@ -20,11 +17,10 @@ import java.util.HashMap;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 
-public abstract class Recommendations extends ActionsHandler {
+public final class Recommendations extends ActionsHandler {
 
-    public Recommendations(final ArrayList<ActionInputData> actions, final Writer fileWriter,
-                           final JSONArray jsonArray, final Database database) {
-        super(actions, fileWriter, jsonArray, database);
+    Recommendations(final ActionsHandler handler) {
+        super(handler);
     }
 
     /**
@@ -32,21 +28,23 @@ public abstract class Recommendations extends ActionsHandler {
      *
      * @param currentAction the current standard recommendation action
      */
-    public static void standard(final ActionInputData currentAction) throws IOException {
+    public void standard(final ActionInputData currentAction) throws IOException {
         User user = Utils.stringToUser(
-                (ArrayList<User>) getDatabase().getUsersData(), currentAction.getUsername());
+                getDatabase().getUsersIndex(), currentAction.getUsername());
 
         if (user != null) {
-            for (Show show : getDatabase().getShowsData()) {
-                if (!user.getHistory().containsKey(show)) {
-                    MessageWriter.recommendationResult(
-                            currentAction, "StandardRecommendation", show);
-                    return;
+            synchronized (getDatabase().getUserLock(user)) {
+                for (Show show : getDatabase().getShowsData()) {
+                    if (!user.hasSeen(show)) {
+                        getMessageWriter().recommendationResult(
+                                currentAction, "StandardRecommendation", show);
+                        return;
+                    }
                 }
             }
         }
 
-        MessageWriter.cannotBeApplied(currentAction, "StandardRecommendation");
+        getMessageWriter().cannotBeApplied(currentAction, "StandardRecommendation");
     }
 
     /**
@@ -55,16 +53,18 @@ public abstract class Recommendations extends ActionsHandler {
      *
      * @param currentAction the current bestUnseen recommendation action
      */
-    public static void bestUnseen(final ActionInputData currentAction) throws IOException {
+    public void bestUnseen(final ActionInputData currentAction) throws IOException {
         User user = Utils.stringToUser(
-                (ArrayList<User>) getDatabase().getUsersData(), currentAction.getUsername());
+                getDatabase().getUsersIndex(), currentAction.getUsername());
 
         List<Show> unseenShows = new ArrayList<>();
 
         if (user != null) {
-            for (Show show : getDatabase().getShowsData()) {
-                if (!user.getHistory().containsKey(show)) {
-                    unseenShows.add(show);
+            synchronized (getDatabase().getUserLock(user)) {
+                for (Show show : getDatabase().getShowsData()) {
+                    if (!user.hasSeen(show)) {
+                        unseenShows.add(show);
+                    }
                 }
             }
         }
@@ -75,12 +75,12 @@ public abstract class Recommendations extends ActionsHandler {
         String bestUnseenShow;
         if (unseenShowsSorted.size() != 0) {
             bestUnseenShow = unseenShowsSorted.get(0).getTitle();
-            MessageWriter.recommendationResult(
+            getMessageWriter().recommendationResult(
                     currentAction, "BestRatedUnseenRecommendation", bestUnseenShow);
             return;
         }
 
-        MessageWriter.cannotBeApplied(currentAction, "BestRatedUnseenRecommendation");
+        getMessageWriter().cannotBeApplied(currentAction, "BestRatedUnseenRecommendation");
     }
 
     /**
@@ -90,12 +90,12 @@ public abstract class Recommendations extends ActionsHandler {
      *
      * @param currentAction the current popular recommendation action
      */
-    public static void popular(final ActionInputData currentAction) throws IOException {
+    public void popular(final ActionInputData currentAction) throws IOException {
         User user = Utils.stringToUser(
-                (ArrayList<User>) getDatabase().getUsersData(), currentAction.getUsername());
+                getDatabase().getUsersIndex(), currentAction.getUsername());
 
         if (user != null && !user.getSubscriptionType().equals("PREMIUM")) {
-            MessageWriter.cannotBeApplied(currentAction, "PopularRecommendation");
+            getMessageWriter().cannotBeApplied(currentAction, "PopularRecommendation");
             return;
         }
 
@@ -117,19 +117,21 @@ public abstract class Recommendations extends ActionsHandler {
                         Map.Entry::getValue,
                         (oldValue, newValue) -> oldValue, LinkedHashMap::new));
 
-        for (Map.Entry<Genre, Integer> entry : sortedGenresMap.entrySet()) {
-            for (Show show : getDatabase().getShowsData()) {
-                if (user != null
-                        && showIsNotSeen(user, show)
-                        && showContainsGenre(show, entry.getKey())) {
-                    MessageWriter.recommendationResult(
-                            currentAction, "PopularRecommendation", show);
-                    return;
+        if (user != null) {
+            synchronized (getDatabase().getUserLock(user)) {
+                for (Map.Entry<Genre, Integer> entry : sortedGenresMap.entrySet()) {
+                    for (Show show : getDatabase().getShowsByGenre(entry.getKey())) {
+                        if (showIsNotSeen(user, show)) {
+                            getMessageWriter().recommendationResult(
+                                    currentAction, "PopularRecommendation", show);
+                            return;
+                        }
+                    }
                 }
             }
         }
 
-        MessageWriter.cannotBeApplied(currentAction, "PopularRecommendation");
+        getMessageWriter().cannotBeApplied(currentAction, "PopularRecommendation");
     }
 
     /**
@@ -138,12 +140,12 @@ public abstract class Recommendations extends ActionsHandler {
      *
      * @param currentAction the current favorite recommendation action
      */
-    public static void favorite(final ActionInputData currentAction) throws IOException {
+    public void favorite(final ActionInputData currentAction) throws IOException {
         User user = Utils.stringToUser(
-                (ArrayList<User>) getDatabase().getUsersData(), currentAction.getUsername());
+                getDatabase().getUsersIndex(), currentAction.getUsername());
 
         if (user != null && !user.getSubscriptionType().equals("PREMIUM")) {
-            MessageWriter.cannotBeApplied(currentAction, "FavoriteRecommendation");
+            getMessageWriter().cannotBeApplied(currentAction, "FavoriteRecommendation");
             return;
         }
 
@@ -152,70 +154,62 @@ public abstract class Recommendations extends ActionsHandler {
                 .sorted(Comparator.comparing(Show::getNrOfAddsAtFavorites).reversed())
                 .toList();
 
-        for (Show show : sortedShows) {
-            if (user != null && showIsNotSeen(user, show)) {
-                MessageWriter.recommendationResult(
-                        currentAction, "FavoriteRecommendation", show);
-                return;
+        if (user != null) {
+            synchronized (getDatabase().getUserLock(user)) {
+                for (Show show : sortedShows) {
+                    if (showIsNotSeen(user, show)) {
+                        getMessageWriter().recommendationResult(
+                                currentAction, "FavoriteRecommendation", show);
+                        return;
+                    }
+                }
             }
         }
 
-        MessageWriter.cannotBeApplied(currentAction, "FavoriteRecommendation");
+        getMessageWriter().cannotBeApplied(currentAction, "FavoriteRecommendation");
     }
 
     /**
-     * Checks if the user has a premium account. Creates a list of unseen shows and
-     * filters it by the given genre. It prints the resulted list.
+     * Checks if the user has a premium account. Creates a list of unseen shows
+     * having the given genre (taken from the genre index of the database).
+     * It prints the resulted list.
      *
      * @param currentAction the current search recommendation action
      */
-    public static void search(final ActionInputData currentAction) throws IOException {
+    public void search(final ActionInputData currentAction) throws IOException {
         User user = Utils.stringToUser(
-                (ArrayList<User>) getDatabase().getUsersData(), currentAction.getUsername());
+                getDatabase().getUsersIndex(), currentAction.getUsername());
 
         if (user != null && !user.getSubscriptionType().equals("PREMIUM")) {
-            MessageWriter.cannotBeApplied(currentAction, "SearchRecommendation");
+            getMessageWriter().cannotBeApplied(currentAction, "SearchRecommendation");
             return;
         }
 
         List<Show> unseenShows = new ArrayList<>();
-        for (Show show : getDatabase().getShowsData()) {
-            if (user != null && showIsNotSeen(user, show)) {
-                unseenShows.add(show);
+        if (user != null) {
+            Genre genre = Utils.stringToGenre(currentAction.getGenre());
+            synchronized (getDatabase().getUserLock(user)) {
+                for (Show show : getDatabase().getShowsByGenre(genre)) {
+                    if (showIsNotSeen(user, show)) {
+                        unseenShows.add(show);
+                    }
+                }
             }
         }
 
         unseenShows = unseenShows.stream()
-                .filter(show -> show.getGenres().contains(
-                        Utils.stringToGenre(currentAction.getGenre())))
                 .sorted(Comparator.comparing(Show::getRatingAverage).thenComparing(Show::toString))
                 .toList();
 
         if (unseenShows.size() == 0) {
-            MessageWriter.cannotBeApplied(currentAction, "SearchRecommendation");
+            getMessageWriter().cannotBeApplied(currentAction, "SearchRecommendation");
         } else {
-            MessageWriter.recommendationResult(
+            getMessageWriter().recommendationResult(
                     currentAction, "SearchRecommendation", unseenShows);
         }
     }
 
     private static boolean showIsNotSeen(final User user, final Show show) {
-        for (Map.Entry<Show, Integer> entry : user.getHistory().entrySet()) {
-            if (entry.getKey().getTitle().equals(show.getTitle())) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private static boolean showContainsGenre(final Show show, final Genre genre) {
-        for (Genre currentGenre : show.getGenres()) {
-            if (currentGenre == genre) {
-                return true;
-            }
-        }
-
-        return false;
+        return !user.hasSeen(show);
     }
 }
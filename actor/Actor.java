@@ -3,6 +3,8 @@ package actor;
 import entertainment.Show;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 
 /**
@@ -15,60 +17,121 @@ public final class Actor {
     private final String careerDescription;
     private final ArrayList<Show> filmography;
     private final Map<ActorsAwards, Integer> awards;
+    /**
+     * Number of awards of a type which is not in ActorsAwards (read as a null
+     * award type), or null if the actor has no such award
+     */
+    private final Integer unknownAwards;
+    private final int nrOfAwards;
+    private volatile double ratingAverage;
 
+    /**
+     * Creates an actor. The awards are copied, so the total number of awards
+     * is computed only once.
+     *
+     * @param name the name of the actor
+     * @param careerDescription the career description of the actor
+     * @param awards the number of awards of each type (a null key stands for
+     *               an unknown type), or null if the actor has no awards
+     */
     public Actor(final String name, final String careerDescription,
                  final Map<ActorsAwards, Integer> awards) {
         this.name = name;
         this.careerDescription = careerDescription;
         this.filmography = new ArrayList<>();
-        this.awards = awards;
+        this.ratingAverage = 0;
+
+        Map<ActorsAwards, Integer> knownAwards = new EnumMap<>(ActorsAwards.class);
+        Integer unknown = null;
+        int total = 0;
+        if (awards != null) {
+            for (Map.Entry<ActorsAwards, Integer> entry : awards.entrySet()) {
+                if (entry.getKey() == null) {
+                    unknown = entry.getValue();
+                } else {
+                    knownAwards.put(entry.getKey(), entry.getValue());
+                }
+                total += entry.getValue();
+            }
+        }
+        this.awards = Collections.unmodifiableMap(knownAwards);
+        this.unknownAwards = unknown;
+        this.nrOfAwards = total;
     }
 
     /**
-     * Calculates the average rating of all shows in which the actor plays.
+     * Returns the cached average rating of the shows in which the actor plays.
+     * The value is kept up to date by {@link #refreshRatingAverage()}.
      *
      * @return the rating average of an actor
      */
     public double getRatingAverage() {
+        return ratingAverage;
+    }
+
+    /**
+     * Recalculates the average rating of all shows in which the actor plays.
+     * Must be called every time the rating average of one of these shows changes.
+     */
+    public synchronized void refreshRatingAverage() {
         double sum = 0;
         double nrOfShows = 0;
         for (Show show : filmography) {
-            if (show.getRatingAverage() != 0) {
-                sum += show.getRatingAverage();
+            double showRatingAverage = show.getRatingAverage();
+            if (showRatingAverage != 0) {
+                sum += showRatingAverage;
                 nrOfShows++;
             }
         }
 
         if (nrOfShows != 0) {
-            return sum / nrOfShows;
+            ratingAverage = sum / nrOfShows;
+        } else {
+            ratingAverage = 0;
         }
-
-        return 0;
     }
 
     /**
-     * Seek the awards map of the actor and calculates
-     * the total number of awards.
+     * Returns the total number of awards of the actor, of every type
+     * (computed when the actor is created).
      *
      * @return the total number of awards of an actor
      */
     public int getNrOfAwards() {
-        int nrOfAwards = 0;
-        for (Map.Entry<ActorsAwards, Integer> entry : awards.entrySet()) {
-            nrOfAwards += entry.getValue();
-        }
-
         return nrOfAwards;
     }
 
+    /**
+     * Checks if the actor has an award of the given type.
+     *
+     * @param award the award type, or null for an unknown type
+     * @return true if the actor has the award
+     */
+    public boolean hasAward(final ActorsAwards award) {
+        return award == null ? unknownAwards != null : awards.containsKey(award);
+    }
+
+    public String getName() {
+        return name;
+    }
+
     public ArrayList<Show> getFilmography() {
         return filmography;
     }
 
+    /**
+     * Returns the awards of the actor whose types are known.
+     *
+     * @return the unmodifiable map of the number of awards of each type
+     */
     public Map<ActorsAwards, Integer> getAwards() {
         return awards;
     }
 
+    public Integer getUnknownAwards() {
+        return unknownAwards;
+    }
+
     public String getCareerDescription() {
         return careerDescription;
     }
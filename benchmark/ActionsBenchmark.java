@@ -0,0 +1,295 @@
+package benchmark;
+
+import actions.ActionsHandler;
+import actions.Commands;
+import actor.ActorsAwards;
+import common.Constants;
+import entertainment.Serial;
+import entertainment.Show;
+import fileio.ActionInputData;
+import fileio.Input;
+import fileio.InputElements;
+import main.Database;
+import org.json.simple.JSONObject;
+import user.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput and the latency of every kind of action (each
+ * command, each query criteria and each recommendation type) and of the
+ * construction of the database, over a synthetic database of a configurable
+ * size (see {@link SyntheticInput}).
+ * <p>
+ * Every benchmark runs a few warmup iterations, whose times are dropped, and
+ * then the measured iterations. An iteration executes a batch of random actions
+ * of the same kind through {@link ActionsHandler#executeAction(ActionInputData)},
+ * timing each of them. The commands change the database, so each of their
+ * iterations runs on a new database; the queries and the recommendations share
+ * a database, on which a part of the users have already rated some shows.
+ * <p>
+ * Usage: ActionsBenchmark [users [shows [actors [operations [iterations [seed]]]]]]
+ */
+public final class ActionsBenchmark {
+
+    private static final int DEFAULT_USERS = 10000;
+    private static final int DEFAULT_SHOWS = 2000;
+    private static final int DEFAULT_ACTORS = 5000;
+    private static final int DEFAULT_OPERATIONS = 2000;
+    private static final int DEFAULT_ITERATIONS = 5;
+    private static final long DEFAULT_SEED = 42;
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int ARG_USERS = 0;
+    private static final int ARG_SHOWS = 1;
+    private static final int ARG_ACTORS = 2;
+    private static final int ARG_OPERATIONS = 3;
+    private static final int ARG_ITERATIONS = 4;
+    private static final int ARG_SEED = 5;
+
+    private static final int MAX_GRADE = 10;
+    private static final int MAX_NUMBER = 20;
+    private static final int MAX_WORDS = 3;
+    private static final int MAX_AWARDS = 2;
+    private static final int YEAR_ODDS = 4;
+    private static final double P50 = 0.5;
+    private static final double P99 = 0.99;
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private static final String[] SHOW_CRITERIA = {"ratings", "favorite", "longest",
+        "most_viewed"};
+    private static final String[] ACTOR_CRITERIA = {"average", "awards", "filter_description"};
+    private static final String[] RECOMMENDATIONS = {"standard", "best_unseen", "popular",
+        "favorite", "search"};
+    private static final String[] COMMANDS = {"view", "favorite", "rating"};
+
+    private final SyntheticInput synthetic;
+    private final int operations;
+    private final int iterations;
+    private final Random random;
+    private int actionId;
+
+    private ActionsBenchmark(final SyntheticInput synthetic, final int operations,
+                             final int iterations, final long seed) {
+        this.synthetic = synthetic;
+        this.operations = operations;
+        this.iterations = iterations;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Runs every benchmark and prints one line of results for each of them.
+     *
+     * @param args the sizes of the database, the number of actions of an
+     *             iteration, the number of iterations and the seed
+     * @throws IOException in case of exceptions to executing the actions
+     */
+    public static void main(final String[] args) throws IOException {
+        int users = intArg(args, ARG_USERS, DEFAULT_USERS);
+        int shows = intArg(args, ARG_SHOWS, DEFAULT_SHOWS);
+        int actors = intArg(args, ARG_ACTORS, DEFAULT_ACTORS);
+        int operations = intArg(args, ARG_OPERATIONS, DEFAULT_OPERATIONS);
+        int iterations = intArg(args, ARG_ITERATIONS, DEFAULT_ITERATIONS);
+        long seed = args.length > ARG_SEED ? Long.parseLong(args[ARG_SEED]) : DEFAULT_SEED;
+
+        SyntheticInput synthetic = new SyntheticInput(shows / 2, shows - shows / 2,
+                actors, users, seed);
+        System.out.printf("%d users, %d shows, %d actors, %d actions x %d iterations%n",
+                users, shows, actors, operations, iterations);
+
+        new ActionsBenchmark(synthetic, operations, iterations, seed).run();
+    }
+
+    private static int intArg(final String[] args, final int index, final int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    private void run() throws IOException {
+        runConstruction();
+
+        for (String command : COMMANDS) {
+            run("command/" + command, true, () -> command(command));
+        }
+
+        for (String criteria : SHOW_CRITERIA) {
+            run("query/shows/" + criteria, false, () -> showQuery(criteria));
+        }
+        for (String criteria : ACTOR_CRITERIA) {
+            run("query/actors/" + criteria, false, () -> actorQuery(criteria));
+        }
+        run("query/users/num_ratings", false, () -> new ActionInputData(nextId(), "query",
+                "users", null, sortType(), "num_ratings", null, number(),
+                new ArrayList<>(), new ArrayList<>()));
+
+        for (String type : RECOMMENDATIONS) {
+            run("recommendation/" + type, false, () -> recommendation(type));
+        }
+    }
+
+    private void runConstruction() {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            new Database(synthetic.generate());
+        }
+
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            Input input = synthetic.generate();
+            long start = System.nanoTime();
+            new Database(input);
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(latencies);
+        System.out.printf("%-32s %12.2f ops/s   p50 %10.2f ms   max %10.2f ms%n",
+                "database", iterations * NANOS_PER_SECOND / Arrays.stream(latencies).sum(),
+                percentile(latencies, P50) / NANOS_PER_MILLI,
+                latencies[latencies.length - 1] / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Runs one benchmark.
+     *
+     * @param name the name printed in the results
+     * @param mutating true if the actions change the database
+     * @param factory builds the actions of an iteration
+     */
+    private void run(final String name, final boolean mutating,
+                     final Supplier<ActionInputData> factory) throws IOException {
+        Database shared = mutating ? null : preparedDatabase();
+        long[] latencies = new long[iterations * operations];
+
+        for (int iteration = -WARMUP_ITERATIONS; iteration < iterations; iteration++) {
+            Database database = mutating ? preparedDatabase() : shared;
+            ActionsHandler handler = new ActionsHandler(new ArrayList<>(),
+                    new DiscardingResultWriter(), database);
+
+            List<ActionInputData> actions = new ArrayList<>(operations);
+            for (int i = 0; i < operations; i++) {
+                actions.add(factory.get());
+            }
+
+            for (int i = 0; i < operations; i++) {
+                long start = System.nanoTime();
+                handler.executeAction(actions.get(i));
+                long latency = System.nanoTime() - start;
+                if (iteration >= 0) {
+                    latencies[iteration * operations + i] = latency;
+                }
+            }
+        }
+
+        Arrays.sort(latencies);
+        long total = Arrays.stream(latencies).sum();
+        System.out.printf("%-32s %12.2f ops/s   p50 %10.2f us   p99 %10.2f us   max %10.2f us%n",
+                name, latencies.length * NANOS_PER_SECOND / total,
+                percentile(latencies, P50) / NANOS_PER_MICRO,
+                percentile(latencies, P99) / NANOS_PER_MICRO,
+                latencies[latencies.length - 1] / NANOS_PER_MICRO);
+    }
+
+    /**
+     * Builds a database on which a part of the users rated some of the shows
+     * they have seen, so the rating based actions have something to sort.
+     */
+    private Database preparedDatabase() {
+        Database database = new Database(synthetic.generate());
+        Random ratings = new Random(synthetic.getUsers());
+        for (User user : database.getUsersData()) {
+            if (ratings.nextBoolean()) {
+                continue;
+            }
+            for (Show show : database.getShowsData()) {
+                if (user.hasSeen(show) && ratings.nextBoolean()) {
+                    int season = show instanceof Serial serial
+                            ? 1 + ratings.nextInt(serial.getSeasons().size()) : 0;
+                    Commands.applyRating(database, user, show, season,
+                            1 + ratings.nextInt(MAX_GRADE));
+                }
+            }
+        }
+        return database;
+    }
+
+    private ActionInputData command(final String type) {
+        int show = random.nextInt(synthetic.getShows());
+        /* every serial has at least one season */
+        int season = show < synthetic.getMovies() ? 0 : 1;
+        return new ActionInputData(nextId(), "command", type, user(),
+                synthetic.showTitle(show), (double) (1 + random.nextInt(MAX_GRADE)), season);
+    }
+
+    private ActionInputData showQuery(final String criteria) {
+        String year = random.nextInt(YEAR_ODDS) != 0 ? null
+                : String.valueOf(SyntheticInput.MIN_YEAR + random.nextInt(SyntheticInput.YEARS));
+        String genre = random.nextBoolean() ? genre() : null;
+        return new ActionInputData(nextId(), "query", random.nextBoolean() ? "movies" : "shows",
+                genre, sortType(), criteria, year, number(), new ArrayList<>(),
+                new ArrayList<>());
+    }
+
+    private ActionInputData actorQuery(final String criteria) {
+        List<String> words = new ArrayList<>();
+        List<String> awards = new ArrayList<>();
+        if (criteria.equals("filter_description")) {
+            int count = 1 + random.nextInt(MAX_WORDS);
+            for (int i = 0; i < count; i++) {
+                words.add(SyntheticInput.WORDS[random.nextInt(SyntheticInput.WORDS.length)]);
+            }
+        } else if (criteria.equals("awards")) {
+            int count = 1 + random.nextInt(MAX_AWARDS);
+            ActorsAwards[] values = ActorsAwards.values();
+            for (int i = 0; i < count; i++) {
+                awards.add(values[random.nextInt(values.length)].name());
+            }
+        }
+        return new ActionInputData(nextId(), "query", "actors", null, sortType(), criteria,
+                null, number(), words, awards);
+    }
+
+    /**
+     * The recommendations are built through the loader, the only place where
+     * their input data may be created.
+     */
+    @SuppressWarnings("unchecked")
+    private ActionInputData recommendation(final String type) {
+        JSONObject action = new JSONObject();
+        action.put(Constants.ID, nextId());
+        action.put(Constants.ACTION_TYPE, Constants.RECOMMENDATION);
+        action.put(Constants.TYPE, type);
+        action.put(Constants.USERNAME, user());
+        if (type.equals("search")) {
+            action.put(Constants.GENRE, genre());
+        }
+        return InputElements.readAction(action, 0);
+    }
+
+    private String user() {
+        return SyntheticInput.username(random.nextInt(synthetic.getUsers()));
+    }
+
+    private String genre() {
+        return SyntheticInput.GENRES[random.nextInt(SyntheticInput.GENRES.length)];
+    }
+
+    private String sortType() {
+        return random.nextBoolean() ? "asc" : "desc";
+    }
+
+    private int number() {
+        return 1 + random.nextInt(MAX_NUMBER);
+    }
+
+    private int nextId() {
+        return actionId++;
+    }
+
+    private static double percentile(final long[] sorted, final double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+    }
+}
@@ -0,0 +1,462 @@
+package benchmark;
+
+import actor.ActorsAwards;
+import common.Constants;
+import entertainment.Season;
+import fileio.ActorInputData;
+import fileio.MovieInputData;
+import fileio.SerialInputData;
+import fileio.ShowInput;
+import fileio.UserInputData;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a large synthetic input file, in the format of the test files, which
+ * can be read by the InputLoader and by the StreamingInputLoader.
+ * <p>
+ * The actors, users and shows are built one at a time by a {@link SyntheticInput},
+ * so the files have the same database as the inputs of the benchmarks, and are
+ * written as soon as they are built. The file is written while it is generated,
+ * so any number of actions can be generated with a constant amount of memory;
+ * only a few arrays sized by the number of users and shows are kept. The
+ * popularity of the shows (in the database and in the commands) and the
+ * activity of the users follow Zipf distributions. The same arguments always
+ * give the same file.
+ * <p>
+ * Usage: DatasetGenerator output_file actions [users [shows [actors [seed [exponent]]]]]
+ * <br>
+ * By default there is a user for every 100 actions, a show for every 10 users
+ * and an actor for every 2 shows.
+ */
+public final class DatasetGenerator {
+
+    private static final int ARG_OUTPUT = 0;
+    private static final int ARG_ACTIONS = 1;
+    private static final int ARG_USERS = 2;
+    private static final int ARG_SHOWS = 3;
+    private static final int ARG_ACTORS = 4;
+    private static final int ARG_SEED = 5;
+    private static final int ARG_EXPONENT = 6;
+    private static final int ACTIONS_PER_USER = 100;
+    private static final int USERS_PER_SHOW = 10;
+    private static final int SHOWS_PER_ACTOR = 2;
+    private static final int MIN_ENTITIES = 10;
+    private static final long DEFAULT_SEED = 42;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int PROGRESS_ACTIONS = 10_000_000;
+
+    private static final int MAX_NUMBER = 50;
+    private static final int GRADES = 91;
+    private static final double GRADE_STEP = 10.0;
+    private static final int YEAR_FILTER_ODDS = 4;
+    private static final int GENRE_FILTER_ODDS = 3;
+    private static final int MAX_WORDS = 3;
+    private static final int MAX_AWARD_FILTERS = 2;
+
+    /**
+     * The kinds of actions and their weights in the generated mix, as percents.
+     */
+    private static final String[] ACTION_KINDS = {"view", "favorite", "rating", "shows",
+        "actors", "users", "standard", "best_unseen", "popular", "recommended_favorite",
+        "search"};
+    private static final int[] ACTION_WEIGHTS = {30, 10, 15, 15, 7, 3, 5, 5, 3, 3, 4};
+    private static final String[] SHOW_CRITERIA = {"ratings", "favorite", "longest",
+        "most_viewed"};
+    private static final String[] ACTOR_CRITERIA = {"average", "awards", "filter_description"};
+
+    private final SyntheticInput names;
+    private final long actions;
+    private final Random random;
+    private final ZipfSampler users;
+    private final byte[] seasons;
+    private final int[] cumulativeWeights = new int[ACTION_WEIGHTS.length];
+    private Writer out;
+
+    public DatasetGenerator(final long actions, final int users, final int shows,
+                            final int actors, final long seed, final double exponent) {
+        this.names = new SyntheticInput(shows / 2, shows - shows / 2, actors, users, seed,
+                exponent);
+        this.actions = actions;
+        this.random = new Random(seed);
+        this.users = new ZipfSampler(users, exponent, random.nextLong());
+
+        this.seasons = new byte[names.getSerials()];
+        for (int i = 0; i < seasons.length; i++) {
+            seasons[i] = (byte) names.serial(i).getNumberSeason();
+        }
+
+        int sum = 0;
+        for (int i = 0; i < ACTION_WEIGHTS.length; i++) {
+            sum += ACTION_WEIGHTS[i];
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    /**
+     * Generates an input file.
+     *
+     * @param args the output file, the number of actions and, optionally, the
+     *             number of users, shows and actors, the seed and the Zipf exponent
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void main(final String[] args) throws IOException {
+        long actions = Long.parseLong(args[ARG_ACTIONS]);
+        int users = args.length > ARG_USERS ? Integer.parseInt(args[ARG_USERS])
+                : (int) Math.max(MIN_ENTITIES, actions / ACTIONS_PER_USER);
+        int shows = args.length > ARG_SHOWS ? Integer.parseInt(args[ARG_SHOWS])
+                : Math.max(MIN_ENTITIES, users / USERS_PER_SHOW);
+        int actors = args.length > ARG_ACTORS ? Integer.parseInt(args[ARG_ACTORS])
+                : Math.max(MIN_ENTITIES, shows / SHOWS_PER_ACTOR);
+        long seed = args.length > ARG_SEED ? Long.parseLong(args[ARG_SEED]) : DEFAULT_SEED;
+        double exponent = args.length > ARG_EXPONENT ? Double.parseDouble(args[ARG_EXPONENT])
+                : SyntheticInput.DEFAULT_EXPONENT;
+
+        long start = System.nanoTime();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(args[ARG_OUTPUT]), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            new DatasetGenerator(actions, users, shows, actors, seed, exponent).write(writer);
+        }
+        System.out.printf("%d actions, %d users, %d shows, %d actors in %d ms%n", actions,
+                users, shows, actors, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Writes the whole input.
+     *
+     * @param writer the destination
+     * @throws IOException in case of exceptions to writing
+     */
+    public void write(final Writer writer) throws IOException {
+        out = writer;
+        out.write("{\"" + Constants.DATABASE + "\": {");
+
+        startArray(Constants.ACTORS);
+        for (int i = 0; i < names.getActors(); i++) {
+            element(i);
+            writeActor(i);
+        }
+        endArray();
+        out.write(", ");
+
+        startArray(Constants.USERS);
+        for (int i = 0; i < names.getUsers(); i++) {
+            element(i);
+            writeUser(i);
+        }
+        endArray();
+        out.write(", ");
+
+        startArray(Constants.MOVIES);
+        for (int i = 0; i < names.getMovies(); i++) {
+            element(i);
+            writeMovie(i);
+        }
+        endArray();
+        out.write(", ");
+
+        startArray(Constants.SHOWS);
+        for (int i = 0; i < names.getSerials(); i++) {
+            element(i);
+            writeSerial(i);
+        }
+        endArray();
+        out.write("}, ");
+
+        startArray(Constants.ACTIONS);
+        for (long i = 0; i < actions; i++) {
+            element(i);
+            writeAction(i + 1);
+            if ((i + 1) % PROGRESS_ACTIONS == 0) {
+                System.err.printf("%d actions written%n", i + 1);
+            }
+        }
+        endArray();
+        out.write("}\n");
+    }
+
+    private void writeActor(final int index) throws IOException {
+        ActorInputData actor = names.actor(index);
+        out.write("{");
+        field(Constants.NAME, actor.getName());
+        out.write(", ");
+        field(Constants.DESCRIPTION, actor.getCareerDescription());
+        out.write(", ");
+        field(Constants.FILMOGRAPHY, actor.getFilmography());
+        out.write(", ");
+
+        key(Constants.AWARDS);
+        out.write("[");
+        boolean first = true;
+        for (Map.Entry<ActorsAwards, Integer> award : actor.getAwards().entrySet()) {
+            out.write(first ? "{" : ", {");
+            field(Constants.AWARD_TYPE, award.getKey().name());
+            out.write(", ");
+            key(Constants.NUMBER_OF_AWARDS);
+            out.write(Integer.toString(award.getValue()));
+            out.write("}");
+            first = false;
+        }
+        out.write("]}");
+    }
+
+    private void writeUser(final int index) throws IOException {
+        UserInputData user = names.user(index);
+        out.write("{");
+        field(Constants.USERNAME, user.getUsername());
+        out.write(", ");
+        field(Constants.SUBSCRIPTION, user.getSubscriptionType());
+        out.write(", ");
+
+        key(Constants.HISTORY);
+        out.write("[");
+        boolean first = true;
+        for (Map.Entry<String, Integer> entry : user.getHistory().entrySet()) {
+            out.write(first ? "{" : ", {");
+            field(Constants.NAME, entry.getKey());
+            out.write(", ");
+            key(Constants.NUMBER_VIEWS);
+            out.write(Integer.toString(entry.getValue()));
+            out.write("}");
+            first = false;
+        }
+        out.write("], ");
+        field(Constants.FAVORITE_MOVIES, user.getFavoriteMovies());
+        out.write("}");
+    }
+
+    private void writeMovie(final int index) throws IOException {
+        MovieInputData movie = names.movie(index);
+        out.write("{");
+        writeShow(movie, Constants.ACTORS);
+        out.write(", ");
+        key(Constants.YEAR);
+        out.write(Integer.toString(movie.getYear()));
+        out.write(", ");
+        key(Constants.DURATION);
+        out.write(Integer.toString(movie.getDuration()));
+        out.write("}");
+    }
+
+    private void writeSerial(final int index) throws IOException {
+        SerialInputData serial = names.serial(index);
+        out.write("{");
+        writeShow(serial, Constants.CAST);
+        out.write(", ");
+        key(Constants.NUMBER_OF_SEASONS);
+        out.write(Integer.toString(serial.getNumberSeason()));
+        out.write(", ");
+
+        key(Constants.SEASONS);
+        out.write("[");
+        for (Season season : serial.getSeasons()) {
+            out.write(season.getCurrentSeason() == 1 ? "{" : ", {");
+            key(Constants.CURRENT_SEASON);
+            out.write(Integer.toString(season.getCurrentSeason()));
+            out.write(", ");
+            key(Constants.DURATION);
+            out.write(Integer.toString(season.getDuration()));
+            out.write("}");
+        }
+        out.write("], ");
+
+        key(Constants.YEAR);
+        out.write(Integer.toString(serial.getYear()));
+        out.write("}");
+    }
+
+    /**
+     * Writes the fields which the movies and the serials have in common, except
+     * the year, which comes last in the serials.
+     */
+    private void writeShow(final ShowInput show, final String castKey) throws IOException {
+        field(Constants.NAME, show.getTitle());
+        out.write(", ");
+        field(castKey, show.getCast());
+        out.write(", ");
+        field(Constants.GENRES, show.getGenres());
+    }
+
+    private void writeAction(final long id) throws IOException {
+        out.write("{");
+        key(Constants.ID);
+        out.write(Long.toString(id));
+        out.write(", ");
+
+        int weight = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int kind = 0;
+        while (cumulativeWeights[kind] <= weight) {
+            kind++;
+        }
+
+        switch (ACTION_KINDS[kind]) {
+            case "view", "favorite", "rating" -> writeCommand(ACTION_KINDS[kind]);
+            case "shows" -> writeQuery(random.nextBoolean() ? Constants.MOVIES : Constants.SHOWS,
+                    SHOW_CRITERIA[random.nextInt(SHOW_CRITERIA.length)]);
+            case "actors" -> writeQuery(Constants.ACTORS,
+                    ACTOR_CRITERIA[random.nextInt(ACTOR_CRITERIA.length)]);
+            case "users" -> writeQuery(Constants.USERS, Constants.NUM_RATINGS);
+            case "recommended_favorite" -> writeRecommendation("favorite");
+            default -> writeRecommendation(ACTION_KINDS[kind]);
+        }
+        out.write("}");
+    }
+
+    private void writeCommand(final String type) throws IOException {
+        field(Constants.ACTION_TYPE, Constants.COMMAND);
+        out.write(", ");
+        field(Constants.TYPE, type);
+        out.write(", ");
+        field(Constants.USER, SyntheticInput.username(users.next(random)));
+        out.write(", ");
+        int show = names.nextShow(random);
+        field(Constants.TITLE, names.showTitle(show));
+
+        if (type.equals("rating")) {
+            out.write(", ");
+            key(Constants.GRADE);
+            out.write(Double.toString(1 + random.nextInt(GRADES) / GRADE_STEP));
+            out.write(", ");
+            key(Constants.SEASON);
+            int serial = show - names.getMovies();
+            out.write(Integer.toString(serial < 0 ? 0 : 1 + random.nextInt(seasons[serial])));
+        }
+    }
+
+    private void writeQuery(final String objectType, final String criteria)
+            throws IOException {
+        field(Constants.ACTION_TYPE, Constants.QUERY);
+        out.write(", ");
+        field(Constants.OBJECT, objectType);
+        out.write(", ");
+        field(Constants.SORT, random.nextBoolean() ? "asc" : "desc");
+        out.write(", ");
+        key(Constants.NUMBER);
+        out.write(Integer.toString(1 + random.nextInt(MAX_NUMBER)));
+        out.write(", ");
+        field(Constants.CRITERIA, criteria);
+        out.write(", ");
+
+        String year = null;
+        String genre = null;
+        List<String> words = null;
+        List<String> awards = null;
+        if (objectType.equals(Constants.MOVIES) || objectType.equals(Constants.SHOWS)) {
+            if (random.nextInt(YEAR_FILTER_ODDS) == 0) {
+                year = Integer.toString(SyntheticInput.MIN_YEAR
+                        + random.nextInt(SyntheticInput.YEARS));
+            }
+            if (random.nextInt(GENRE_FILTER_ODDS) == 0) {
+                genre = genre();
+            }
+        } else if (criteria.equals(Constants.FILTER_DESCRIPTIONS)) {
+            words = new ArrayList<>();
+            int count = 1 + random.nextInt(MAX_WORDS);
+            for (int i = 0; i < count; i++) {
+                words.add(SyntheticInput.WORDS[random.nextInt(SyntheticInput.WORDS.length)]);
+            }
+        } else if (criteria.equals(Constants.AWARDS)) {
+            awards = new ArrayList<>();
+            int count = 1 + random.nextInt(MAX_AWARD_FILTERS);
+            ActorsAwards[] values = ActorsAwards.values();
+            for (int i = 0; i < count; i++) {
+                String award = values[random.nextInt(values.length)].name();
+                if (!awards.contains(award)) {
+                    awards.add(award);
+                }
+            }
+        }
+
+        key(Constants.FILTERS);
+        out.write("{");
+        field(Constants.YEAR, year);
+        out.write(", ");
+        field(Constants.GENRE, genre);
+        out.write(", ");
+        field(Constants.WORDS, words);
+        out.write(", ");
+        field(Constants.AWARDS, awards);
+        out.write("}");
+    }
+
+    private void writeRecommendation(final String type) throws IOException {
+        field(Constants.ACTION_TYPE, Constants.RECOMMENDATION);
+        out.write(", ");
+        field(Constants.TYPE, type);
+        out.write(", ");
+        field(Constants.USERNAME, SyntheticInput.username(users.next(random)));
+        if (type.equals("search")) {
+            out.write(", ");
+            field(Constants.GENRE, genre());
+        }
+    }
+
+    private String genre() {
+        return SyntheticInput.GENRES[random.nextInt(SyntheticInput.GENRES.length)];
+    }
+
+    private void startArray(final String name) throws IOException {
+        key(name);
+        out.write("[");
+    }
+
+    private void element(final long index) throws IOException {
+        out.write(index == 0 ? "\n" : ",\n");
+    }
+
+    private void endArray() throws IOException {
+        out.write("\n]");
+    }
+
+    private void key(final String name) throws IOException {
+        string(name);
+        out.write(": ");
+    }
+
+    private void field(final String name, final String value) throws IOException {
+        key(name);
+        string(value);
+    }
+
+    private void field(final String name, final List<String> values) throws IOException {
+        key(name);
+        if (values == null) {
+            out.write("null");
+            return;
+        }
+
+        out.write("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.write(", ");
+            }
+            string(values.get(i));
+        }
+        out.write("]");
+    }
+
+    /**
+     * Writes a string value; the generated strings contain no characters
+     * which need escaping.
+     */
+    private void string(final String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+
+        out.write('"');
+        out.write(value);
+        out.write('"');
+    }
+}
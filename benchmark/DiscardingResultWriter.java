@@ -0,0 +1,17 @@
+package benchmark;
+
+import fileio.ResultWriter;
+
+/**
+ * Drops the results of the actions, so the benchmarks measure the actions
+ * and not the output.
+ */
+final class DiscardingResultWriter implements ResultWriter {
+    @Override
+    public void write(final int id, final CharSequence message) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,208 @@
+package benchmark;
+
+import actions.ActionsHandler;
+import actions.CommandIngestor;
+import common.Constants;
+import entertainment.Movie;
+import entertainment.Season;
+import entertainment.Serial;
+import entertainment.Show;
+import fileio.ActionInputData;
+import fileio.Input;
+import fileio.InputLoader;
+import fileio.ResultWriter;
+import main.Database;
+import main.ShowLeaderboards;
+import user.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Checks the {@link CommandIngestor} against the serial execution of the same
+ * commands: the commands of the input are executed once by an ActionsHandler
+ * and then, in every round, by the ingestor on a fresh database. The results
+ * and the final state of the databases must be exactly the same: the counters
+ * of the shows, the histories, the favorites and the ratings of the users, the
+ * grades and the averages of the shows and the order of the leaderboards.
+ * <p>
+ * Without an input file, every test file is checked. The run fails (with the
+ * exit status 1) if any round of any file differs.
+ * <p>
+ * Usage: IngestStress [input_file [threads [rounds]]]
+ */
+public final class IngestStress {
+
+    private static final int DEFAULT_THREADS = 8;
+    private static final int DEFAULT_ROUNDS = 10;
+    private static final String[] CRITERIA = {ShowLeaderboards.RATINGS,
+            ShowLeaderboards.FAVORITE, ShowLeaderboards.MOST_VIEWED, ShowLeaderboards.LONGEST};
+
+    /**
+     * Collects the results of the actions as text.
+     */
+    private static final class TextResultWriter implements ResultWriter {
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public void write(final int id, final CharSequence message) {
+            text.append(id).append(": ").append(message).append('\n');
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * for coding style
+     */
+    private IngestStress() {
+    }
+
+    /**
+     * Runs the rounds and prints the parts of the state which differ.
+     *
+     * @param args optionally, the input file, the number of threads and of rounds
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void main(final String[] args) throws IOException {
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_THREADS;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ROUNDS;
+
+        List<String> inputPaths = new ArrayList<>();
+        if (args.length > 0) {
+            inputPaths.add(args[0]);
+        } else {
+            File[] files = Objects.requireNonNull(new File(Constants.TESTS_PATH).listFiles());
+            Arrays.sort(files);
+            for (File file : files) {
+                inputPaths.add(file.getPath());
+            }
+        }
+
+        int failed = 0;
+        for (String inputPath : inputPaths) {
+            System.out.println(inputPath);
+            failed += check(inputPath, threads, rounds);
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the rounds on an input file.
+     *
+     * @return the number of rounds which differ from the serial execution
+     */
+    private static int check(final String inputPath, final int threads, final int rounds)
+            throws IOException {
+        Input input = new InputLoader(inputPath).readData();
+        ArrayList<ActionInputData> commands = new ArrayList<>();
+        for (ActionInputData action : input.getCommands()) {
+            if (Constants.COMMAND.equals(action.getActionType())) {
+                commands.add(action);
+            }
+        }
+        System.out.printf("%d commands, %d threads%n", commands.size(), threads);
+
+        Database serialDatabase = new Database(input);
+        TextResultWriter serialResults = new TextResultWriter();
+        new ActionsHandler(new ArrayList<>(commands), serialResults, serialDatabase)
+                .executeActions();
+        Map<String, String> expected = state(serialDatabase, serialResults);
+
+        int failed = 0;
+        for (int round = 0; round < rounds; round++) {
+            Database database = new Database(new InputLoader(inputPath).readData());
+            TextResultWriter results = new TextResultWriter();
+            new CommandIngestor(new ActionsHandler(new ArrayList<>(), results, database),
+                    threads).ingest(commands);
+
+            Map<String, String> actual = state(database, results);
+            List<String> differences = new ArrayList<>();
+            for (Map.Entry<String, String> part : expected.entrySet()) {
+                if (!part.getValue().equals(actual.get(part.getKey()))) {
+                    differences.add(part.getKey());
+                }
+            }
+            if (!differences.isEmpty()) {
+                failed++;
+            }
+            System.out.printf("round %d: %s%n", round,
+                    differences.isEmpty() ? "same" : "different " + differences);
+        }
+
+        System.out.printf("%d of %d rounds differ%n", failed, rounds);
+        return failed;
+    }
+
+    /**
+     * Describes the exact state of a database after the commands, by part.
+     */
+    private static Map<String, String> state(final Database database,
+                                             final TextResultWriter results) {
+        StringBuilder counters = new StringBuilder();
+        StringBuilder grades = new StringBuilder();
+        StringBuilder averages = new StringBuilder();
+        for (Show show : database.getShowsData()) {
+            counters.append(show.getTitle()).append(' ').append(show.getNrOfViews())
+                    .append(' ').append(show.getNrOfAddsAtFavorites()).append('\n');
+            grades.append(show.getTitle());
+            if (show instanceof Movie movie) {
+                grades.append(' ').append(movie.getRatings());
+            } else {
+                for (Season season : ((Serial) show).getSeasons()) {
+                    grades.append(' ').append(season.getRatings());
+                }
+            }
+            grades.append('\n');
+            averages.append(show.getTitle()).append(' ').append(show.getRatingAverage())
+                    .append('\n');
+        }
+
+        StringBuilder histories = new StringBuilder();
+        StringBuilder favorites = new StringBuilder();
+        StringBuilder ratings = new StringBuilder();
+        for (User user : database.getUsersData()) {
+            Map<Integer, Integer> history = new TreeMap<>();
+            user.forEachHistoryEntry(history::put);
+            histories.append(user.getUsername()).append(' ').append(history).append('\n');
+            favorites.append(user.getUsername());
+            for (Show show : user.getFavoriteMovies()) {
+                favorites.append(' ').append(show.getTitle());
+            }
+            favorites.append('\n');
+            ratings.append(user.getUsername()).append(' ').append(user.getNumberOfRatings())
+                    .append('\n');
+        }
+
+        Map<String, String> state = new LinkedHashMap<>();
+        state.put("results", results.text.toString());
+        state.put("counters", counters.toString());
+        state.put("histories", histories.toString());
+        state.put("favorites", favorites.toString());
+        state.put("user ratings", ratings.toString());
+        state.put("grades", grades.toString());
+        state.put("averages", averages.toString());
+        for (String criteria : CRITERIA) {
+            for (boolean movies : new boolean[] {true, false}) {
+                StringBuilder leaderboard = new StringBuilder();
+                database.getLeaderboards().walk(criteria, movies, true, show -> {
+                    leaderboard.append(show.getTitle()).append('\n');
+                    return true;
+                });
+                state.put(criteria + (movies ? " movies" : " serials"), leaderboard.toString());
+            }
+        }
+        return state;
+    }
+}
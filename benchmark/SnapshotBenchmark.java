@@ -0,0 +1,81 @@
+package benchmark;
+
+import actions.ActionsHandler;
+import fileio.ActionInputData;
+import fileio.Input;
+import fileio.InputLoader;
+import main.Database;
+import main.DatabaseSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways of building a database: parsing the JSON input and
+ * reading a binary snapshot. The actions of the input are executed before the
+ * snapshot is written, so the snapshot contains the changes of the commands.
+ * <p>
+ * Usage: SnapshotBenchmark input_file [iterations]
+ */
+public final class SnapshotBenchmark {
+
+    private static final int DEFAULT_ITERATIONS = 5;
+
+    /**
+     * for coding style
+     */
+    private SnapshotBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the load times.
+     *
+     * @param args the input file and, optionally, the number of iterations
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        String inputPath = args[0];
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+
+        Input input = new InputLoader(inputPath).readData();
+        Database database = new Database(input);
+        new ActionsHandler((ArrayList<ActionInputData>) input.getCommands(),
+                new DiscardingResultWriter(), database).executeActions();
+
+        Path snapshot = Files.createTempFile("videosdb", ".snapshot");
+        try {
+            DatabaseSnapshot.write(database, snapshot);
+            System.out.printf("input: %d bytes, snapshot: %d bytes%n",
+                    Files.size(Path.of(inputPath)), Files.size(snapshot));
+
+            long[] jsonTimes = new long[iterations];
+            long[] snapshotTimes = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                new Database(new InputLoader(inputPath).readData());
+                jsonTimes[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                DatabaseSnapshot.read(snapshot);
+                snapshotTimes[i] = System.nanoTime() - start;
+            }
+
+            print("JSON load", jsonTimes);
+            print("snapshot load", snapshotTimes);
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    private static void print(final String name, final long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%s: min %d ms, median %d ms%n", name,
+                TimeUnit.NANOSECONDS.toMillis(sorted[0]),
+                TimeUnit.NANOSECONDS.toMillis(sorted[sorted.length / 2]));
+    }
+}
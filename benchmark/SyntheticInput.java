@@ -0,0 +1,333 @@
+package benchmark;
+
+import actor.ActorsAwards;
+import entertainment.Season;
+import fileio.ActionInputData;
+import fileio.ActorInputData;
+import fileio.Input;
+import fileio.MovieInputData;
+import fileio.SerialInputData;
+import fileio.UserInputData;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds synthetic inputs of a configurable size, without going through the
+ * JSON files. This is the generator of the database for both the benchmarks,
+ * which use the whole input, and the {@link DatasetGenerator}, which writes
+ * the entities one at a time, so the files have the shape of the data the
+ * benchmarks measure.
+ * <p>
+ * Every entity is generated from its own random, seeded from the seed of the
+ * input and the index of the entity, so an entity is the same whatever the
+ * order in which the entities are generated. The shows of the filmographies and
+ * of the histories are drawn with a Zipf distribution.
+ * <p>
+ * Every call builds new objects: the database keeps some of the input objects
+ * (for example the seasons of the serials), so an input must not be shared by
+ * two databases which are then modified.
+ */
+public final class SyntheticInput {
+
+    /**
+     * The genres, as they are written in the input files.
+     */
+    static final String[] GENRES = {"Action", "Adventure", "Drama", "Comedy", "Crime",
+        "Romance", "War", "History", "Thriller", "Mystery", "Family", "Horror", "Fantasy",
+        "Science Fiction", "Action & Adventure", "Sci-Fi & Fantasy", "Animation", "Kids",
+        "Western", "TV Movie"};
+
+    /**
+     * The words from which the career descriptions are made.
+     */
+    static final String[] WORDS = {"actor", "actress", "american", "award", "born",
+        "british", "career", "character", "comedy", "director", "drama", "early", "famous",
+        "film", "first", "known", "later", "lead", "life", "major", "movie", "night",
+        "performance", "played", "producer", "role", "series", "show", "singer", "stage",
+        "star", "starred", "supporting", "television", "theatre", "voice", "won", "writer",
+        "years", "young"};
+
+    static final String BASIC = "BASIC";
+    static final String PREMIUM = "PREMIUM";
+    static final int MIN_YEAR = 1960;
+    static final int YEARS = 61;
+    /**
+     * The default exponent of the Zipf distribution of the shows
+     */
+    static final double DEFAULT_EXPONENT = 1.0;
+
+    private static final int MAX_GENRES = 3;
+    private static final int COMMA_ODDS = 6;
+    private static final int MIN_DURATION = 60;
+    private static final int DURATIONS = 120;
+    private static final int MAX_SEASONS = 8;
+    private static final int MIN_SEASON_DURATION = 200;
+    private static final int SEASON_DURATIONS = 600;
+    private static final int MAX_FILMOGRAPHY = 12;
+    private static final int MIN_DESCRIPTION = 10;
+    private static final int DESCRIPTIONS = 40;
+    private static final int MAX_AWARDS = 10;
+    private static final int MAX_HISTORY = 30;
+    private static final int MAX_VIEWS = 5;
+    private static final int PREMIUM_USERS = 3;
+    /**
+     * Mixes the seed of an entity (the golden ratio, as a 64-bit fraction)
+     */
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+    private static final int MOVIE = 0;
+    private static final int SERIAL = 1;
+    private static final int ACTOR = 2;
+    private static final int USER = 3;
+    private static final int KINDS = 4;
+
+    private final int movies;
+    private final int serials;
+    private final int actors;
+    private final int users;
+    private final long seed;
+    private final ZipfSampler shows;
+
+    public SyntheticInput(final int movies, final int serials, final int actors,
+                          final int users, final long seed) {
+        this(movies, serials, actors, users, seed, DEFAULT_EXPONENT);
+    }
+
+    public SyntheticInput(final int movies, final int serials, final int actors,
+                          final int users, final long seed, final double exponent) {
+        this.movies = movies;
+        this.serials = serials;
+        this.actors = actors;
+        this.users = users;
+        this.seed = seed;
+        this.shows = new ZipfSampler(movies + serials, exponent, seed);
+    }
+
+    /**
+     * Returns the title of a movie.
+     *
+     * @param index the index of the movie
+     * @return the title
+     */
+    public static String movieTitle(final int index) {
+        return "Movie " + index;
+    }
+
+    /**
+     * Returns the title of a serial.
+     *
+     * @param index the index of the serial
+     * @return the title
+     */
+    public static String serialTitle(final int index) {
+        return "Serial " + index;
+    }
+
+    /**
+     * Returns the name of an actor.
+     *
+     * @param index the index of the actor
+     * @return the name
+     */
+    public static String actorName(final int index) {
+        return "Actor " + index;
+    }
+
+    /**
+     * Returns the username of a user.
+     *
+     * @param index the index of the user
+     * @return the username
+     */
+    public static String username(final int index) {
+        return "user" + index;
+    }
+
+    /**
+     * Returns the title of a show, counting the movies first and then the serials.
+     *
+     * @param index the index of the show
+     * @return the title
+     */
+    public String showTitle(final int index) {
+        return index < movies ? movieTitle(index) : serialTitle(index - movies);
+    }
+
+    public int getShows() {
+        return movies + serials;
+    }
+
+    public int getMovies() {
+        return movies;
+    }
+
+    public int getSerials() {
+        return serials;
+    }
+
+    public int getActors() {
+        return actors;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * Draws the index of a show, with the Zipf distribution of the input.
+     *
+     * @param random the random of the draw
+     * @return the index of the show, counting the movies first and then the serials
+     */
+    public int nextShow(final Random random) {
+        return shows.next(random);
+    }
+
+    /**
+     * Builds a new input, without actions.
+     *
+     * @return the input
+     */
+    public Input generate() {
+        List<MovieInputData> moviesData = new ArrayList<>(movies);
+        for (int i = 0; i < movies; i++) {
+            moviesData.add(movie(i));
+        }
+
+        List<SerialInputData> serialsData = new ArrayList<>(serials);
+        for (int i = 0; i < serials; i++) {
+            serialsData.add(serial(i));
+        }
+
+        List<ActorInputData> actorsData = new ArrayList<>(actors);
+        for (int i = 0; i < actors; i++) {
+            actorsData.add(actor(i));
+        }
+
+        List<UserInputData> usersData = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            usersData.add(user(i));
+        }
+
+        return new Input(actorsData, usersData, new ArrayList<ActionInputData>(),
+                moviesData, serialsData);
+    }
+
+    /**
+     * Builds a movie.
+     *
+     * @param index the index of the movie
+     * @return the movie
+     */
+    public MovieInputData movie(final int index) {
+        Random random = random(MOVIE, index);
+        return new MovieInputData(movieTitle(index), new ArrayList<>(), genres(random),
+                year(random), MIN_DURATION + random.nextInt(DURATIONS));
+    }
+
+    /**
+     * Builds a serial.
+     *
+     * @param index the index of the serial
+     * @return the serial
+     */
+    public SerialInputData serial(final int index) {
+        Random random = random(SERIAL, index);
+        int numberOfSeasons = 1 + random.nextInt(MAX_SEASONS);
+        ArrayList<Season> seasons = new ArrayList<>(numberOfSeasons);
+        for (int season = 1; season <= numberOfSeasons; season++) {
+            seasons.add(new Season(season,
+                    MIN_SEASON_DURATION + random.nextInt(SEASON_DURATIONS)));
+        }
+        return new SerialInputData(serialTitle(index), new ArrayList<>(), genres(random),
+                numberOfSeasons, seasons, year(random));
+    }
+
+    /**
+     * Builds an actor.
+     *
+     * @param index the index of the actor
+     * @return the actor
+     */
+    public ActorInputData actor(final int index) {
+        Random random = random(ACTOR, index);
+        ArrayList<String> filmography = new ArrayList<>();
+        int filmographySize = getShows() == 0 ? 0 : 1 + random.nextInt(MAX_FILMOGRAPHY);
+        for (int i = 0; i < filmographySize; i++) {
+            String title = showTitle(nextShow(random));
+            if (!filmography.contains(title)) {
+                filmography.add(title);
+            }
+        }
+        return new ActorInputData(actorName(index), description(random), filmography,
+                awards(random));
+    }
+
+    /**
+     * Builds a user, with its history in the order in which it was drawn.
+     *
+     * @param index the index of the user
+     * @return the user
+     */
+    public UserInputData user(final int index) {
+        Random random = random(USER, index);
+        Map<String, Integer> history = new LinkedHashMap<>();
+        ArrayList<String> favorites = new ArrayList<>();
+        int historySize = getShows() == 0 ? 0 : random.nextInt(MAX_HISTORY);
+        for (int i = 0; i < historySize; i++) {
+            String title = showTitle(nextShow(random));
+            if (history.put(title, 1 + random.nextInt(MAX_VIEWS)) == null
+                    && random.nextBoolean()) {
+                favorites.add(title);
+            }
+        }
+        String subscription = random.nextInt(PREMIUM_USERS) == 0 ? PREMIUM : BASIC;
+        return new UserInputData(username(index), subscription, history, favorites);
+    }
+
+    private Random random(final int kind, final int index) {
+        return new Random((seed + (long) index * KINDS + kind) * SEED_MIX);
+    }
+
+    private static ArrayList<String> genres(final Random random) {
+        int count = 1 + random.nextInt(MAX_GENRES);
+        ArrayList<String> genres = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String genre = GENRES[random.nextInt(GENRES.length)];
+            if (!genres.contains(genre)) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
+    private static int year(final Random random) {
+        return MIN_YEAR + random.nextInt(YEARS);
+    }
+
+    private static String description(final Random random) {
+        int count = MIN_DESCRIPTION + random.nextInt(DESCRIPTIONS);
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                description.append(random.nextInt(COMMA_ODDS) == 0 ? ", " : " ");
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return description.append('.').toString();
+    }
+
+    private static Map<ActorsAwards, Integer> awards(final Random random) {
+        Map<ActorsAwards, Integer> awards = new EnumMap<>(ActorsAwards.class);
+        for (ActorsAwards award : ActorsAwards.values()) {
+            if (random.nextBoolean()) {
+                awards.put(award, 1 + random.nextInt(MAX_AWARDS));
+            }
+        }
+        return awards;
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws indexes from [0, n) with a Zipf distribution: the index of rank k is
+ * drawn with a probability proportional to 1 / k^exponent. The ranks are
+ * assigned to the indexes through a seeded permutation, so the popular items
+ * are spread over the whole range instead of being the first ones.
+ */
+final class ZipfSampler {
+
+    private final double[] cumulative;
+    private final int[] items;
+
+    ZipfSampler(final int n, final double exponent, final long seed) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+
+        items = new int[n];
+        for (int i = 0; i < n; i++) {
+            items[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int item = items[i];
+            items[i] = items[j];
+            items[j] = item;
+        }
+    }
+
+    /**
+     * Draws an index.
+     *
+     * @param random the source of randomness
+     * @return the index
+     */
+    int next(final Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        return items[Math.min(rank, items.length - 1)];
+    }
+
+    int size() {
+        return items.length;
+    }
+}
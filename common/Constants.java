@@ -79,4 +79,22 @@ public final class Constants {
     public static final int GENRE_FILTER = 1;
     public static final int WORDS_FILTER = 2;
     public static final int AWARDS_FILTER = 3;
+
+    // run options, given as system properties (-Dname=value)
+    public static final String STREAMING_INPUT = "videosdb.streamingInput";
+    public static final String MAPPED_INPUT = "videosdb.mappedInput";
+    public static final String STREAMING_OUTPUT = "videosdb.streamingOutput";
+    public static final String OUTPUT_FLUSH_BATCH = "videosdb.outputFlushBatch";
+    public static final int DEFAULT_OUTPUT_FLUSH_BATCH = 64;
+    public static final String PARALLEL_RUNS = "videosdb.parallelRuns";
+    public static final String PARALLEL_QUERIES = "videosdb.parallelQueries";
+    public static final String SNAPSHOT = "videosdb.snapshot";
+    public static final String COMMAND_LOG = "videosdb.commandLog";
+    public static final String COMMAND_LOG_GROUP = "videosdb.commandLogGroup";
+    public static final int DEFAULT_COMMAND_LOG_GROUP = 256;
+    public static final String COMMAND_LOG_SYNC_MILLIS = "videosdb.commandLogSyncMillis";
+    public static final int DEFAULT_COMMAND_LOG_SYNC_MILLIS = 10;
+    public static final String METRICS = "videosdb.metrics";
+    public static final String METRICS_INTERVAL_MILLIS = "videosdb.metricsIntervalMillis";
+    public static final String LOAD_TIMINGS = "videosdb.loadTimings";
 }
@@ -1,6 +1,7 @@
 package entertainment;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -11,31 +12,45 @@ public final class Movie extends Show {
 
     private final int duration;
     private final List<Double> ratings;
+    private double ratingsSum;
+    private int nrOfRatings;
 
     public Movie(final String title, final ArrayList<Genre> genres,
                  final int year, final int duration) {
         super(title, year, genres);
         this.duration = duration;
         this.ratings = new ArrayList<>();
+        this.ratingsSum = 0;
+        this.nrOfRatings = 0;
     }
 
     public List<Double> getRatings() {
-        return ratings;
+        return Collections.unmodifiableList(ratings);
     }
 
     /**
-     * Seeks the list of ratings of a movie and calculates the average.
+     * Adds a grade to the movie and updates the running sum and count
+     * of its ratings. The aggregates are guarded by the movie, so grades
+     * may be added from several threads.
      *
-     * @return the rating average of the movie
+     * @param grade the grade given by a user
      */
-    public double getRatingAverage() {
-        double ratingsSum = 0;
-        for (double currentRating : ratings) {
-            ratingsSum += currentRating;
-        }
+    public synchronized void addRating(final double grade) {
+        ratings.add(grade);
+        ratingsSum += grade;
+        nrOfRatings++;
+    }
 
-        if (ratings.size() != 0) {
-            return ratingsSum / ratings.size();
+    /**
+     * Calculates the average from the running sum and count of the ratings.
+     * The grades are summed in the order they were given, so the result is
+     * the same as summing the list of ratings.
+     *
+     * @return the rating average of the movie
+     */
+    public synchronized double getRatingAverage() {
+        if (nrOfRatings != 0) {
+            return ratingsSum / nrOfRatings;
         }
 
         return 0;
@@ -1,6 +1,7 @@
 package entertainment;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -21,11 +22,25 @@ public final class Season {
      * List of ratings for each season
      */
     private List<Double> ratings;
+    /**
+     * Running sum of the ratings of the season
+     */
+    private double ratingsSum;
+    /**
+     * Running count of the ratings of the season
+     */
+    private int nrOfRatings;
 
     public Season(final int currentSeason, final int duration) {
         this.currentSeason = currentSeason;
         this.duration = duration;
         this.ratings = new ArrayList<>();
+        this.ratingsSum = 0;
+        this.nrOfRatings = 0;
+    }
+
+    public int getCurrentSeason() {
+        return currentSeason;
     }
 
     public int getDuration() {
@@ -37,11 +52,55 @@ public final class Season {
     }
 
     public List<Double> getRatings() {
-        return ratings;
+        return Collections.unmodifiableList(ratings);
     }
 
-    public void setRatings(final List<Double> ratings) {
-        this.ratings = ratings;
+    /**
+     * Replaces the ratings of the season and recomputes the running aggregates.
+     *
+     * @param ratings the new list of ratings
+     */
+    public synchronized void setRatings(final List<Double> ratings) {
+        this.ratings = new ArrayList<>(ratings);
+        this.ratingsSum = 0;
+        for (double currentRating : this.ratings) {
+            this.ratingsSum += currentRating;
+        }
+        this.nrOfRatings = this.ratings.size();
+    }
+
+    /**
+     * Adds a grade to the season and updates the running sum and count.
+     * The aggregates are guarded by the season, so grades may be added
+     * from several threads.
+     *
+     * @param grade the grade given by a user
+     */
+    public synchronized void addRating(final double grade) {
+        ratings.add(grade);
+        ratingsSum += grade;
+        nrOfRatings++;
+    }
+
+    public synchronized double getRatingsSum() {
+        return ratingsSum;
+    }
+
+    public synchronized int getNrOfRatings() {
+        return nrOfRatings;
+    }
+
+    /**
+     * Calculates the average of the season, reading the sum and the count together.
+     *
+     * @return the rating average of the season, or 0 if it has no ratings
+     */
+    public synchronized double getRatingAverage() {
+        if (nrOfRatings != 0) {
+            return ratingsSum / nrOfRatings;
+        }
+
+        return 0;
     }
 
     @Override
@@ -10,6 +10,7 @@ public final class Serial extends Show {
 
     private final int numberOfSeasons;
     private final ArrayList<Season> seasons;
+    private volatile double ratingAverage;
 
     public Serial(final String title, final ArrayList<Genre> genres,
                   final int numberOfSeasons, final ArrayList<Season> seasons,
@@ -17,6 +18,11 @@ public final class Serial extends Show {
         super(title, year, genres);
         this.numberOfSeasons = numberOfSeasons;
         this.seasons = seasons;
+        this.ratingAverage = computeRatingAverage();
+    }
+
+    public int getNumberOfSeasons() {
+        return numberOfSeasons;
     }
 
     public ArrayList<Season> getSeasons() {
@@ -24,21 +30,40 @@ public final class Serial extends Show {
     }
 
     /**
-     * Seeks the list of ratings of each season of the serial and calculates the average.
+     * Adds a grade to the given season and refreshes the cached average
+     * of the serial.
+     *
+     * @param seasonNumber the number of the rated season (starting from 1)
+     * @param grade the grade given by a user
+     */
+    public synchronized void addRating(final int seasonNumber, final double grade) {
+        seasons.get(seasonNumber - 1).addRating(grade);
+        ratingAverage = computeRatingAverage();
+    }
+
+    /**
+     * Returns the cached rating average of the serial, refreshed every time
+     * one of its seasons is rated through {@link #addRating(int, double)}.
      *
      * @return the rating average of the serial
      */
     public double getRatingAverage() {
+        return ratingAverage;
+    }
+
+    /**
+     * Seeks the running aggregates of each season of the serial and calculates the average.
+     *
+     * @return the rating average of the serial
+     */
+    private double computeRatingAverage() {
+        if (seasons == null) {
+            return 0;
+        }
+
         double ratingsSum = 0;
         for (Season currentSeason : seasons) {
-            double currentSeasonRatingsSum = 0;
-            for (double currentSeasonCurrentRating : currentSeason.getRatings()) {
-                currentSeasonRatingsSum += currentSeasonCurrentRating;
-            }
-
-            if (currentSeason.getRatings().size() != 0) {
-                ratingsSum += (currentSeasonRatingsSum / currentSeason.getRatings().size());
-            }
+            ratingsSum += currentSeason.getRatingAverage();
         }
 
         if (numberOfSeasons != 0) {
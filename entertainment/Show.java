@@ -3,31 +3,86 @@ package entertainment;
 import actor.Actor;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Show abstract class - a show must be either be a movie or a serial.
  * Each show is linked directly with its actors (the cast field is
- * a list of Actor objects).
+ * a list of Actor objects). The genres of a show are also kept as a
+ * bitmask (one bit for each Genre constant), so a genre check is a single AND.
  */
 public abstract class Show {
 
+    /**
+     * Bit used for the genres which could not be parsed (null Genre).
+     */
+    private static final long UNKNOWN_GENRE_BIT = 1L << Genre.values().length;
+
+    /**
+     * Atomic updaters of the counters, which are incremented by concurrent commands.
+     */
+    private static final AtomicIntegerFieldUpdater<Show> NR_OF_VIEWS =
+            AtomicIntegerFieldUpdater.newUpdater(Show.class, "nrOfViews");
+    private static final AtomicIntegerFieldUpdater<Show> NR_OF_ADDS_AT_FAVORITES =
+            AtomicIntegerFieldUpdater.newUpdater(Show.class, "nrOfAddsAtFavorites");
+
+    private int id;
     private final String title;
     private final int year;
     private final ArrayList<Actor> cast;
     private final ArrayList<Genre> genres;
-    private int nrOfAddsAtFavorites;
-    private int nrOfViews;
+    private final long genreMask;
+    private volatile int nrOfAddsAtFavorites;
+    private volatile int nrOfViews;
 
     public Show(final String title, final int year,
                 final ArrayList<Genre> genres) {
+        this.id = -1;
         this.title = title;
         this.year = year;
         this.cast = new ArrayList<>();
         this.genres = genres;
+        this.genreMask = computeGenreMask(genres);
         this.nrOfAddsAtFavorites = 0;
         this.nrOfViews = 0;
     }
 
+    /**
+     * Returns the bit of a genre inside a genre mask.
+     *
+     * @param genre the genre (null for a genre which could not be parsed)
+     * @return a mask with only the bit of the genre set
+     */
+    public static long genreBit(final Genre genre) {
+        if (genre == null) {
+            return UNKNOWN_GENRE_BIT;
+        }
+
+        return 1L << genre.ordinal();
+    }
+
+    private static long computeGenreMask(final ArrayList<Genre> genres) {
+        long mask = 0;
+        if (genres != null) {
+            for (Genre genre : genres) {
+                mask |= genreBit(genre);
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Checks if the show has the given genre. It gives the same result
+     * as searching the genre in the list of genres.
+     *
+     * @param genre the genre to be checked
+     * @return true if the genre is one of the show's genres
+     */
+    public final boolean hasGenre(final Genre genre) {
+        return (genreMask & genreBit(genre)) != 0;
+    }
+
     /**
      * Calculates the rating average of a show using different formulas
      * depending on the type of the show (movie/serial).
@@ -44,6 +99,20 @@ public abstract class Show {
      */
     public abstract int getDuration();
 
+    /**
+     * Returns the dense id of the show, which is its position in the
+     * database (-1 if the show is not part of a database).
+     *
+     * @return the id of the show
+     */
+    public final int getId() {
+        return id;
+    }
+
+    public final void setId(final int id) {
+        this.id = id;
+    }
+
     public final String getTitle() {
         return title;
     }
@@ -60,6 +129,10 @@ public abstract class Show {
         return genres;
     }
 
+    public final long getGenreMask() {
+        return genreMask;
+    }
+
     public final int getNrOfAddsAtFavorites() {
         return nrOfAddsAtFavorites;
     }
@@ -76,6 +149,24 @@ public abstract class Show {
         this.nrOfViews = nrOfViews;
     }
 
+    /**
+     * Atomically adds a view to the show.
+     *
+     * @return the new number of views
+     */
+    public final int incrementNrOfViews() {
+        return NR_OF_VIEWS.incrementAndGet(this);
+    }
+
+    /**
+     * Atomically adds an add at favorites to the show.
+     *
+     * @return the new number of adds at favorites
+     */
+    public final int incrementNrOfAddsAtFavorites() {
+        return NR_OF_ADDS_AT_FAVORITES.incrementAndGet(this);
+    }
+
     @Override
     public final String toString() {
         return title;
@@ -0,0 +1,30 @@
+package fileio;
+
+import org.json.simple.JSONArray;
+
+import java.io.IOException;
+
+/**
+ * Keeps every result in a JSONArray, which is written to the file only when
+ * the writer is closed.
+ */
+public final class ArrayResultWriter implements ResultWriter {
+
+    private final Writer fileWriter;
+    private final JSONArray jsonArray = new JSONArray();
+
+    public ArrayResultWriter(final String path) throws IOException {
+        this.fileWriter = new Writer(path);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(final int id, final CharSequence message) throws IOException {
+        jsonArray.add(fileWriter.writeFile(id, "", message.toString()));
+    }
+
+    @Override
+    public void close() {
+        fileWriter.closeJSON(jsonArray);
+    }
+}
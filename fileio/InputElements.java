@@ -0,0 +1,175 @@
+package fileio;
+
+import common.Constants;
+import entertainment.Season;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import utils.Utils;
+
+import java.util.ArrayList;
+
+/**
+ * Converts the JSON objects of the elements of an input file (an actor, a user,
+ * a show or an action) into the input data classes. The conversions are shared
+ * by the {@link InputLoader}, the {@link StreamingInputLoader} and the server,
+ * so every way of reading the input gives the same entities.
+ */
+public final class InputElements {
+    /**
+     * for coding style
+     */
+    private InputElements() {
+    }
+
+    /**
+     * Converts a JSON object from the actors array into an actor.
+     *
+     * @param jsonActor the JSON object of the actor
+     * @return the actor read from input
+     */
+    public static ActorInputData readActor(final JSONObject jsonActor) {
+        return new ActorInputData(
+                (String) jsonActor.get(Constants.NAME),
+                (String) jsonActor.get(Constants.DESCRIPTION),
+                Utils.convertJSONArray((JSONArray) jsonActor.get(Constants.FILMOGRAPHY)),
+                Utils.convertAwards((JSONArray) jsonActor.get(Constants.AWARDS))
+        );
+    }
+
+    /**
+     * Converts a JSON object from the users array into an user.
+     *
+     * @param jsonUser the JSON object of the user
+     * @return the user read from input
+     */
+    public static UserInputData readUser(final JSONObject jsonUser) {
+        return new UserInputData(
+                (String) jsonUser.get(Constants.USERNAME),
+                (String) jsonUser.get(Constants.SUBSCRIPTION),
+                Utils.watchedMovie((JSONArray) jsonUser.get(Constants.HISTORY)),
+                Utils.convertJSONArray((JSONArray) jsonUser.get(Constants.FAVORITE_MOVIES))
+        );
+    }
+
+    /**
+     * Converts a JSON object from the shows array into a serial.
+     *
+     * @param jsonIterator the JSON object of the serial
+     * @return the serial read from input
+     */
+    public static SerialInputData readSerial(final JSONObject jsonIterator) {
+        ArrayList<Season> seasons = new ArrayList<>();
+
+        if (jsonIterator.get(Constants.SEASONS) != null) {
+            for (Object iterator : (JSONArray) jsonIterator.get(Constants.SEASONS)) {
+                seasons.add(new Season(
+                        ((Long) ((JSONObject) iterator).get(Constants.CURRENT_SEASON))
+                                .intValue(),
+                        ((Long) ((JSONObject) iterator).get(Constants.DURATION))
+                                .intValue()
+                ));
+            }
+        } else {
+            seasons = null;
+        }
+
+        return new SerialInputData(
+                (String) jsonIterator.get(Constants.NAME),
+                Utils.convertJSONArray((JSONArray) jsonIterator.get(Constants.CAST)),
+                Utils.convertJSONArray((JSONArray) jsonIterator.get(Constants.GENRES)),
+                ((Long) jsonIterator.get(Constants.NUMBER_OF_SEASONS)).intValue(),
+                seasons,
+                Integer.parseInt(jsonIterator.get(Constants.YEAR).toString())
+        );
+    }
+
+    /**
+     * Converts a JSON object from the movies array into a movie.
+     *
+     * @param jsonIterator the JSON object of the movie
+     * @return the movie read from input
+     */
+    public static MovieInputData readMovie(final JSONObject jsonIterator) {
+        return new MovieInputData(
+                (String) jsonIterator.get(Constants.NAME),
+                Utils.convertJSONArray((JSONArray) jsonIterator.get(Constants.ACTORS)),
+                Utils.convertJSONArray((JSONArray) jsonIterator.get(Constants.GENRES)),
+                Integer.parseInt(jsonIterator.get(Constants.YEAR).toString()),
+                Integer.parseInt(jsonIterator.get(Constants.DURATION).toString())
+        );
+    }
+
+    /**
+     * Converts a JSON object from the actions array into an action.
+     *
+     * @param jsonIterator the JSON object of the action
+     * @param size the default number of results of a query
+     * @return the action read from input, or null for an unknown action type
+     */
+    public static ActionInputData readAction(final JSONObject jsonIterator, final int size) {
+        String actionType = (String) jsonIterator.get(Constants.ACTION_TYPE);
+        double grade = 0;
+        int season = 0;
+
+        if (jsonIterator.get(Constants.SEASON) != null) {
+            season = Integer.parseInt(jsonIterator.get(Constants.SEASON).toString());
+        }
+
+        if (jsonIterator.get(Constants.GRADE) != null) {
+            grade = Double.parseDouble(jsonIterator.get(Constants.GRADE).toString());
+        }
+
+        String genre = null;
+        String year = null;
+        JSONArray awards = null;
+        JSONArray words = null;
+
+        int number;
+
+        if (jsonIterator.get(Constants.NUMBER) != null) {
+            number = Integer.parseInt(jsonIterator.get(Constants.NUMBER).toString());
+        } else {
+            number = size;
+        }
+
+        if (jsonIterator.get(Constants.FILTERS) != null) {
+            JSONObject filters = (JSONObject) jsonIterator.get(Constants.FILTERS);
+            genre = (String) filters.get(Constants.GENRE);
+            year = (String) filters.get(Constants.YEAR);
+            awards = (JSONArray) filters.get(Constants.AWARDS);
+            words = (JSONArray) filters.get(Constants.WORDS);
+        }
+
+        return switch (actionType) {
+            case Constants.COMMAND -> new ActionInputData(
+                    Integer.parseInt(jsonIterator.get(Constants.ID).toString()),
+                    actionType,
+                    (String) jsonIterator.get(Constants.TYPE),
+                    (String) jsonIterator.get(Constants.USER),
+                    (String) jsonIterator.get(Constants.TITLE),
+                    grade,
+                    season
+            );
+            case Constants.QUERY -> new ActionInputData(
+                    Integer.parseInt(jsonIterator.get(Constants.ID).toString()),
+                    actionType,
+                    (String) jsonIterator.get(Constants.OBJECT),
+                    genre,
+                    (String) jsonIterator.get(Constants.SORT),
+                    (String) jsonIterator.get(Constants.CRITERIA),
+                    year,
+                    number,
+                    Utils.convertJSONArray(words),
+                    Utils.convertJSONArray(awards)
+            );
+            case Constants.RECOMMENDATION -> new ActionInputData(
+                    Integer.parseInt(jsonIterator.get(Constants.ID).toString()),
+                    actionType,
+                    (String) jsonIterator.get(Constants.TYPE),
+                    (String) jsonIterator.get(Constants.USERNAME),
+                    (String) jsonIterator.get(Constants.GENRE)
+            );
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package fileio;
+
+import java.io.IOException;
+
+/**
+ * Receives the entities of an input file one by one, as soon as they
+ * are read by a {@link StreamingInputLoader}.
+ */
+public interface InputListener {
+    /**
+     * Called for every actor of the database.
+     *
+     * @param actor the actor read from input
+     */
+    void actor(ActorInputData actor);
+
+    /**
+     * Called for every user of the database.
+     *
+     * @param user the user read from input
+     */
+    void user(UserInputData user);
+
+    /**
+     * Called for every movie of the database.
+     *
+     * @param movie the movie read from input
+     */
+    void movie(MovieInputData movie);
+
+    /**
+     * Called for every serial of the database.
+     *
+     * @param serial the serial read from input
+     */
+    void serial(SerialInputData serial);
+
+    /**
+     * Called for every action, after the whole database was read.
+     *
+     * @param action the action read from input
+     * @throws IOException in case of exceptions to writing the result of the action
+     */
+    void action(ActionInputData action) throws IOException;
+}
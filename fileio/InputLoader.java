@@ -1,15 +1,13 @@
 package fileio;
 
 import common.Constants;
-import entertainment.Season;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
-import utils.Utils;
 
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,6 +21,10 @@ public final class InputLoader {
      * The path to the input file
      */
     private final String inputPath;
+    /**
+     * Measurements of the last read, if the file was memory-mapped
+     */
+    private ReadStatistics readStatistics;
 
     public InputLoader(final String inputPath) {
         this.inputPath = inputPath;
@@ -32,6 +34,10 @@ public final class InputLoader {
         return inputPath;
     }
 
+    public ReadStatistics getReadStatistics() {
+        return readStatistics;
+    }
+
     /**
      * The method reads the database
      *
@@ -47,8 +53,12 @@ public final class InputLoader {
 
         try {
             // Parsing the contents of the JSON file
-            JSONObject jsonObject = (JSONObject) jsonParser
-                    .parse(new FileReader(inputPath));
+            JSONObject jsonObject;
+            try (Reader reader = MappedInputReader.open(inputPath)) {
+                long parseStart = System.nanoTime();
+                jsonObject = (JSONObject) jsonParser.parse(reader);
+                readStatistics = ReadStatistics.of(reader, System.nanoTime() - parseStart);
+            }
             JSONObject database = (JSONObject) jsonObject.get(Constants.DATABASE);
             JSONArray jsonActors = (JSONArray)
                     database.get(Constants.ACTORS);
@@ -61,14 +71,7 @@ public final class InputLoader {
 
             if (jsonActors != null) {
                 for (Object jsonActor : jsonActors) {
-                    actors.add(new ActorInputData(
-                            (String) ((JSONObject) jsonActor).get(Constants.NAME),
-                            (String) ((JSONObject) jsonActor).get(Constants.DESCRIPTION),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonActor)
-                                    .get(Constants.FILMOGRAPHY)),
-                            Utils.convertAwards((JSONArray) ((JSONObject) jsonActor)
-                                    .get(Constants.AWARDS))
-                    ));
+                    actors.add(InputElements.readActor((JSONObject) jsonActor));
                 }
             } else {
                 System.out.println("NU EXISTA ACTORI");
@@ -76,14 +79,7 @@ public final class InputLoader {
 
             if (jsonUsers != null) {
                 for (Object jsonUser : jsonUsers) {
-                    users.add(new UserInputData(
-                            (String) ((JSONObject) jsonUser).get(Constants.USERNAME),
-                            (String) ((JSONObject) jsonUser).get(Constants.SUBSCRIPTION),
-                            Utils.watchedMovie((JSONArray) ((JSONObject) jsonUser)
-                                    .get(Constants.HISTORY)),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonUser)
-                                    .get(Constants.FAVORITE_MOVIES))
-                    ));
+                    users.add(InputElements.readUser((JSONObject) jsonUser));
                 }
             } else {
                 System.out.println("NU EXISTA UTILIZATORI");
@@ -91,35 +87,7 @@ public final class InputLoader {
 
             if (jsonSerial != null) {
                 for (Object jsonIterator : jsonSerial) {
-
-                    ArrayList<Season> seasons = new ArrayList<>();
-
-                    if (((JSONObject) jsonIterator).get(Constants.SEASONS) != null) {
-                        for (Object iterator : (JSONArray) ((JSONObject) jsonIterator)
-                                .get(Constants.SEASONS)) {
-                            seasons.add(new Season(
-                                    ((Long) ((JSONObject) iterator).get(Constants.CURRENT_SEASON))
-                                            .intValue(),
-                                    ((Long) ((JSONObject) iterator).get(Constants.DURATION))
-                                            .intValue()
-                            ));
-                        }
-                    } else {
-                        seasons = null;
-                    }
-
-                    serials.add(new SerialInputData(
-                            (String) ((JSONObject) jsonIterator).get(Constants.NAME),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonIterator)
-                                    .get(Constants.CAST)),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonIterator)
-                                    .get(Constants.GENRES)),
-                            ((Long) ((JSONObject) jsonIterator).get(Constants.NUMBER_OF_SEASONS))
-                                    .intValue(),
-                            seasons,
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.YEAR)
-                                    .toString())
-                    ));
+                    serials.add(InputElements.readSerial((JSONObject) jsonIterator));
                 }
             } else {
                 System.out.println("NU EXISTA SERIALE");
@@ -127,17 +95,7 @@ public final class InputLoader {
 
             if (jsonMovies != null) {
                 for (Object jsonIterator : jsonMovies) {
-                    movies.add(new MovieInputData(
-                            (String) ((JSONObject) jsonIterator).get(Constants.NAME),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonIterator)
-                                    .get(Constants.ACTORS)),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonIterator)
-                                    .get(Constants.GENRES)),
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.YEAR)
-                                    .toString()),
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.DURATION)
-                                    .toString())
-                    ));
+                    movies.add(InputElements.readMovie((JSONObject) jsonIterator));
                 }
             } else {
                 System.out.println("NU EXISTA FILME");
@@ -184,88 +142,10 @@ public final class InputLoader {
 
         if (jsonActions != null) {
             for (Object jsonIterator : jsonActions) {
-                String actionType = (String) ((JSONObject) jsonIterator)
-                        .get(Constants.ACTION_TYPE);
-                double grade = 0;
-                int season = 0;
-
-                if (((JSONObject) jsonIterator).get(Constants.SEASON) != null) {
-                    season = Integer.parseInt(((JSONObject) jsonIterator)
-                            .get(Constants.SEASON).toString());
-                }
-
-                if (((JSONObject) jsonIterator).get(Constants.GRADE) != null) {
-                    grade = Double.parseDouble(((JSONObject) jsonIterator).get(Constants.GRADE)
-                            .toString());
-                }
-
-                String genre = null;
-                String year = null;
-                JSONArray awards = null;
-                JSONArray words = null;
-
-                int number;
-
-                if (((JSONObject) jsonIterator).get(Constants.NUMBER) != null) {
-                    number = Integer.parseInt(((JSONObject) jsonIterator)
-                            .get(Constants.NUMBER).toString());
-                } else {
-                    number = size;
-                }
-
-                if (((JSONObject) jsonIterator).get(Constants.FILTERS) != null) {
-                    genre = (String) ((JSONObject) ((JSONObject) jsonIterator)
-                            .get(Constants.FILTERS))
-                            .get(Constants.GENRE);
-
-                    year = (String) ((JSONObject) ((JSONObject) jsonIterator)
-                            .get(Constants.FILTERS))
-                            .get(Constants.YEAR);
-
-                    awards = (JSONArray) ((JSONObject) ((JSONObject) jsonIterator)
-                            .get(Constants.FILTERS))
-                            .get(Constants.AWARDS);
-
-                    words = (JSONArray) ((JSONObject) ((JSONObject) jsonIterator)
-                            .get(Constants.FILTERS))
-                            .get(Constants.WORDS);
-                }
-
-                switch (actionType) {
-
-                    case Constants.COMMAND -> actions.add(new ActionInputData(
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.ID)
-                                    .toString()),
-                            actionType,
-                            (String) ((JSONObject) jsonIterator).get(Constants.TYPE),
-                            (String) ((JSONObject) jsonIterator).get(Constants.USER),
-                            (String) ((JSONObject) jsonIterator).get(Constants.TITLE),
-                            grade,
-                            season
-                    ));
-                    case Constants.QUERY -> actions.add(new ActionInputData(
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.ID)
-                                    .toString()),
-                            actionType,
-                            (String) ((JSONObject) jsonIterator).get(Constants.OBJECT),
-                            genre,
-                            (String) ((JSONObject) jsonIterator).get(Constants.SORT),
-                            (String) ((JSONObject) jsonIterator).get(Constants.CRITERIA),
-                            year,
-                            number,
-                            Utils.convertJSONArray(words),
-                            Utils.convertJSONArray(awards)
-                    ));
-                    case Constants.RECOMMENDATION -> actions.add(new ActionInputData(
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.ID)
-                                    .toString()),
-                            actionType,
-                            (String) ((JSONObject) jsonIterator).get(Constants.TYPE),
-                            (String) ((JSONObject) jsonIterator).get(Constants.USERNAME),
-                            (String) ((JSONObject) jsonIterator).get(Constants.GENRE)
-                    ));
-                    default -> {
-                    }
+                ActionInputData action = InputElements.readAction((JSONObject) jsonIterator,
+                        size);
+                if (action != null) {
+                    actions.add(action);
                 }
             }
         } else {
@@ -0,0 +1,185 @@
+package fileio;
+
+import common.Constants;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader which memory-maps the input file (in regions of at most 1 GB, so files
+ * bigger than 2 GB are supported) and decodes it as UTF-8 in big blocks. The bytes
+ * decoded and the time spent in mapping and decoding are counted, so the I/O cost
+ * can be told apart from the parsing cost.
+ */
+public final class MappedInputReader extends Reader {
+
+    private static final long MAX_REGION_SIZE = 1L << 30;
+    private static final int CHAR_BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private boolean endOfInput;
+    /**
+     * Whether the decoder was flushed, after which it must not be used again
+     */
+    private boolean flushed;
+
+    private long bytesRead;
+    private long ioNanos;
+
+    public MappedInputReader(final String inputPath) throws IOException {
+        this.channel = FileChannel.open(Paths.get(inputPath), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.regionStart = 0;
+        this.chars.flip();
+    }
+
+    /**
+     * Opens the input file. If the mapped input option is set, the file is
+     * memory-mapped and decoded as UTF-8 in big blocks.
+     *
+     * @param inputPath the path to the input file
+     * @return a reader of the file
+     * @throws IOException in case of exceptions to reading
+     */
+    static Reader open(final String inputPath) throws IOException {
+        if (Boolean.getBoolean(Constants.MAPPED_INPUT)) {
+            return new MappedInputReader(inputPath);
+        }
+
+        return new FileReader(inputPath);
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+
+        int count = Math.min(length, chars.remaining());
+        chars.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the time spent in mapping the file and decoding it.
+     *
+     * @return the I/O time, in nanoseconds
+     */
+    public long getIoNanos() {
+        return ioNanos;
+    }
+
+    /**
+     * Decodes the next block of the file in the char buffer.
+     *
+     * @return false if the whole file was already decoded
+     */
+    private boolean fill() throws IOException {
+        if (flushed) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        chars.clear();
+
+        while (chars.position() == 0 && !endOfInput) {
+            if (region == null || !region.hasRemaining()) {
+                if (!mapNextRegion()) {
+                    break;
+                }
+            }
+
+            int before = region.position();
+            CoderResult result = decoder.decode(region, chars, false);
+            bytesRead += region.position() - before;
+            if (result.isError()) {
+                result.throwException();
+            }
+
+            if (result.isUnderflow() && region.hasRemaining()) {
+                if (regionStart + region.limit() >= fileSize) {
+                    if (!chars.hasRemaining()) {
+                        /* no room for the replacement, decoded by the next fill */
+                        break;
+                    }
+                    /* an incomplete character at the end of the file */
+                    result = decoder.decode(region, chars, true);
+                    if (result.isError()) {
+                        result.throwException();
+                    }
+                    endOfInput = true;
+                } else if (!mapNextRegion()) {
+                    /* an incomplete character at the end of the region */
+                    break;
+                }
+            }
+        }
+
+        if (endOfInput && chars.position() == 0) {
+            CoderResult result = decoder.decode(ByteBuffer.allocate(0), chars, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            decoder.flush(chars);
+            flushed = true;
+        }
+
+        chars.flip();
+        ioNanos += System.nanoTime() - start;
+        return chars.hasRemaining();
+    }
+
+    /**
+     * Maps the region starting with the first byte which was not decoded yet.
+     *
+     * @return false if there are no bytes left
+     */
+    private boolean mapNextRegion() throws IOException {
+        if (region != null) {
+            regionStart += region.position();
+        }
+
+        if (regionStart >= fileSize) {
+            region = null;
+            endOfInput = true;
+            return false;
+        }
+
+        long size = Math.min(MAX_REGION_SIZE, fileSize - regionStart);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, size);
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+package fileio;
+
+import java.io.Reader;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measurements of the reading of an input file: the bytes read, the time spent
+ * in I/O (mapping and UTF-8 decoding) and the time spent in JSON parsing.
+ */
+public final class ReadStatistics {
+
+    private static final double BYTES_PER_MB = 1 << 20;
+
+    private final long bytes;
+    private final long ioNanos;
+    private final long parseNanos;
+
+    public ReadStatistics(final long bytes, final long ioNanos, final long totalNanos) {
+        this.bytes = bytes;
+        this.ioNanos = ioNanos;
+        this.parseNanos = Math.max(0, totalNanos - ioNanos);
+    }
+
+    /**
+     * Builds the measurements of a read, if the reader was a mapped one.
+     *
+     * @param reader the reader of the file
+     * @param totalNanos the total time of the read (I/O and parsing)
+     * @return the measurements, or null if the file was not memory-mapped
+     */
+    static ReadStatistics of(final Reader reader, final long totalNanos) {
+        if (reader instanceof MappedInputReader mappedReader) {
+            return new ReadStatistics(mappedReader.getBytesRead(), mappedReader.getIoNanos(),
+                    totalNanos);
+        }
+
+        return null;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getIoNanos() {
+        return ioNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Calculates the throughput of the I/O phase (mapping and decoding).
+     *
+     * @return the bytes decoded per second
+     */
+    public double getIoBytesPerSecond() {
+        return perSecond(ioNanos);
+    }
+
+    /**
+     * Calculates the throughput of the parsing phase.
+     *
+     * @return the bytes parsed per second
+     */
+    public double getParseBytesPerSecond() {
+        return perSecond(parseNanos);
+    }
+
+    private double perSecond(final long nanos) {
+        if (nanos == 0) {
+            return 0;
+        }
+
+        return bytes / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%.1f MB: I/O %d ms (%.1f MB/s), parsing %d ms (%.1f MB/s)",
+                bytes / BYTES_PER_MB,
+                TimeUnit.NANOSECONDS.toMillis(ioNanos), getIoBytesPerSecond() / BYTES_PER_MB,
+                TimeUnit.NANOSECONDS.toMillis(parseNanos),
+                getParseBytesPerSecond() / BYTES_PER_MB);
+    }
+}
@@ -0,0 +1,69 @@
+package fileio;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Keeps the results in memory, so they can be written later, in another order,
+ * to another {@link ResultWriter}. The results are numbered in the order in
+ * which they were written, starting from 0.
+ */
+public final class ResultBuffer implements ResultWriter {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private String[] messages = new String[INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public void write(final int id, final CharSequence message) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * size);
+            messages = Arrays.copyOf(messages, 2 * size);
+        }
+
+        ids[size] = id;
+        messages[size] = message.toString();
+        size++;
+    }
+
+    /**
+     * Returns the number of buffered results.
+     *
+     * @return the number of the next result
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes a range of the buffered results to another writer.
+     *
+     * @param from the number of the first result (inclusive)
+     * @param to the number of the last result (exclusive)
+     * @param target the writer of the results
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeTo(final int from, final int to,
+                        final ResultWriter target) throws IOException {
+        for (int i = from; i < to; i++) {
+            target.write(ids[i], messages[i]);
+        }
+    }
+
+    /**
+     * Drops every buffered result.
+     */
+    public void clear() {
+        Arrays.fill(messages, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Nothing to be closed, the results stay in the buffer.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,27 @@
+package fileio;
+
+import java.io.IOException;
+
+/**
+ * Destination of the results of the actions. The output is a JSON array with
+ * one {"id": ..., "message": ...} object for every result, in the order in
+ * which the results are written.
+ */
+public interface ResultWriter {
+    /**
+     * Writes the result of an action.
+     *
+     * @param id the id of the action
+     * @param message the message of the result, which may be a reused buffer,
+     *                so it must be consumed before returning
+     * @throws IOException in case of exceptions to writing
+     */
+    void write(int id, CharSequence message) throws IOException;
+
+    /**
+     * Ends the output and closes the file.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    void close() throws IOException;
+}
@@ -0,0 +1,240 @@
+package fileio;
+
+import common.Constants;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * Reads an input file token by token, without building the JSON tree of the
+ * whole file. Only one element (an actor, a user, a show or an action) is held
+ * as a JSON object at a time; it is converted and passed to the listener as soon
+ * as it is complete, so the memory used by the loader does not depend on the size
+ * of the file.
+ * <p>
+ * The actions are executed as they are read, on the complete database, so the
+ * "database" object must come before the "actions" array in the file (as in the
+ * files of the tests and of the dataset generator). Buffering the actions of the
+ * other layout would take memory proportional to the number of actions, so such
+ * a file is rejected with an exception and must be read by the {@link InputLoader}.
+ * The listener may still keep the entities of the database until the first
+ * action, which takes memory proportional to the size of the database.
+ */
+public final class StreamingInputLoader implements ContentHandler {
+
+    private static final Set<String> DATABASE_SECTIONS = Set.of(Constants.ACTORS,
+            Constants.USERS, Constants.MOVIES, Constants.SHOWS);
+    /* depth of the values of the root object (the database and the actions) */
+    private static final int TOP_LEVEL_DEPTH = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String inputPath;
+    private final InputListener listener;
+
+    private final Deque<String> keys = new ArrayDeque<>();
+    /* the containers of the element which is currently read */
+    private final Deque<Object> element = new ArrayDeque<>();
+    private int depth;
+    private String section;
+    private int sectionDepth;
+
+    private boolean databaseRead;
+    private int nrOfActors;
+    private int nrOfUsers;
+    private int nrOfShows;
+
+    private ReadStatistics readStatistics;
+
+    public StreamingInputLoader(final String inputPath, final InputListener listener) {
+        this.inputPath = inputPath;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the measurements of the last read. The parsing time also contains
+     * the time spent by the listener in handling the entities.
+     *
+     * @return the measurements, or null if the file was not memory-mapped
+     */
+    public ReadStatistics getReadStatistics() {
+        return readStatistics;
+    }
+
+    /**
+     * Reads the input file and passes every entity to the listener.
+     * The actions are passed only after the whole database was read.
+     *
+     * @throws IOException in case of exceptions to reading / writing, or if an
+     *                     action comes before the database
+     */
+    public void readData() throws IOException {
+        try (Reader reader = MappedInputReader.open(inputPath)) {
+            long parseStart = System.nanoTime();
+            if (reader instanceof MappedInputReader) {
+                new JSONParser().parse(reader, this);
+            } else {
+                new JSONParser().parse(new BufferedReader(reader, BUFFER_SIZE), this);
+            }
+            readStatistics = ReadStatistics.of(reader, System.nanoTime() - parseStart);
+        } catch (ParseException e) {
+            throw new IOException("Invalid input file: " + inputPath, e);
+        }
+    }
+
+    @Override
+    public void startJSON() {
+        depth = 0;
+        section = null;
+    }
+
+    @Override
+    public void endJSON() {
+        /* the actions were all executed as they were read */
+    }
+
+    @Override
+    public boolean startObject() {
+        depth++;
+        if (!element.isEmpty()) {
+            JSONObject object = new JSONObject();
+            addValue(object);
+            element.push(object);
+        } else if (section != null && depth == sectionDepth + 1) {
+            element.push(new JSONObject());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endObject() throws IOException {
+        if (!element.isEmpty()) {
+            Object object = element.pop();
+            if (element.isEmpty()) {
+                dispatch((JSONObject) object);
+            }
+        } else if (depth == TOP_LEVEL_DEPTH && Constants.DATABASE.equals(keys.peek())) {
+            databaseRead = true;
+        }
+        depth--;
+        return true;
+    }
+
+    @Override
+    public boolean startObjectEntry(final String key) {
+        keys.push(key);
+        return true;
+    }
+
+    @Override
+    public boolean endObjectEntry() {
+        keys.pop();
+        return true;
+    }
+
+    @Override
+    public boolean startArray() {
+        depth++;
+        if (!element.isEmpty()) {
+            JSONArray array = new JSONArray();
+            addValue(array);
+            element.push(array);
+        } else if (section == null && isSection()) {
+            section = keys.peek();
+            sectionDepth = depth;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endArray() {
+        if (!element.isEmpty()) {
+            element.pop();
+        } else if (section != null && depth == sectionDepth) {
+            section = null;
+        }
+        depth--;
+        return true;
+    }
+
+    @Override
+    public boolean primitive(final Object value) {
+        if (!element.isEmpty()) {
+            addValue(value);
+        }
+        return true;
+    }
+
+    private boolean isSection() {
+        String key = keys.peek();
+        if (depth == TOP_LEVEL_DEPTH && Constants.ACTIONS.equals(key)) {
+            return true;
+        }
+
+        if (depth == TOP_LEVEL_DEPTH + 1 && DATABASE_SECTIONS.contains(key)) {
+            /* the key under the section key must be the database one */
+            String sectionKey = keys.pop();
+            boolean inDatabase = Constants.DATABASE.equals(keys.peek());
+            keys.push(sectionKey);
+            return inDatabase;
+        }
+
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addValue(final Object value) {
+        Object parent = element.peek();
+        if (parent instanceof JSONArray) {
+            ((JSONArray) parent).add(value);
+        } else {
+            ((JSONObject) parent).put(keys.peek(), value);
+        }
+    }
+
+    private void dispatch(final JSONObject object) throws IOException {
+        switch (section) {
+            case Constants.ACTORS -> {
+                listener.actor(InputElements.readActor(object));
+                nrOfActors++;
+            }
+            case Constants.USERS -> {
+                listener.user(InputElements.readUser(object));
+                nrOfUsers++;
+            }
+            case Constants.MOVIES -> {
+                listener.movie(InputElements.readMovie(object));
+                nrOfShows++;
+            }
+            case Constants.SHOWS -> {
+                listener.serial(InputElements.readSerial(object));
+                nrOfShows++;
+            }
+            case Constants.ACTIONS -> {
+                if (!databaseRead) {
+                    throw new IOException("The database must come before the actions"
+                            + " in a streamed input file: " + inputPath);
+                }
+                passAction(object);
+            }
+            default -> { }
+        }
+    }
+
+    private void passAction(final JSONObject object) throws IOException {
+        /* same default number of results as the InputLoader */
+        int size = Math.max(Math.max(nrOfShows, nrOfUsers), nrOfActors);
+        ActionInputData action = InputElements.readAction(object, size);
+        if (action != null) {
+            listener.action(action);
+        }
+    }
+}
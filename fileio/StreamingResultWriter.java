@@ -0,0 +1,191 @@
+package fileio;
+
+import common.Constants;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes every result to the file as soon as it is produced, so the memory
+ * does not grow with the number of actions. The output is the same as the
+ * one of an {@link ArrayResultWriter}.
+ * <p>
+ * The results are formatted directly in a reusable char buffer, escaped the
+ * same way as json-simple does it, without building any JSONObject or
+ * intermediate string. The buffer is flushed every flushBatch results
+ * (0 means the buffer is flushed only when it is full).
+ * <p>
+ * A writer created by {@link #lines(java.io.Writer)} writes one JSON object
+ * per line instead of a JSON array, flushing after every result.
+ */
+public final class StreamingResultWriter implements ResultWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int LINE_BUFFER_SIZE = 1 << 10;
+    private static final String OBJECT_START = "{\"" + Constants.ID_STRING + "\":";
+    private static final String MESSAGE_START = ",\"" + Constants.MESSAGE + "\":\"";
+    private static final String OBJECT_END = "\"}";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final int HEX_DIGIT_BITS = 4;
+    private static final int UNICODE_ESCAPE_SHIFT = 12;
+    private static final int DECIMAL_RADIX = 10;
+    private static final int MAX_INT_DIGITS = 10;
+
+    private final java.io.Writer out;
+    private final int flushBatch;
+    private final char[] buffer;
+    private final char[] digits = new char[MAX_INT_DIGITS];
+    /**
+     * Written between two results
+     */
+    private final String separator;
+    /**
+     * Written after every result
+     */
+    private final String terminator;
+    /**
+     * Written at the end of the output
+     */
+    private final String end;
+    private int position;
+    private int pending;
+    private boolean empty = true;
+
+    private StreamingResultWriter(final java.io.Writer out, final int flushBatch,
+                                  final int bufferSize, final boolean lineDelimited) {
+        this.out = out;
+        this.flushBatch = flushBatch;
+        this.buffer = new char[bufferSize];
+        this.separator = lineDelimited ? "" : ",";
+        this.terminator = lineDelimited ? "\n" : "";
+        this.end = lineDelimited ? "" : "]";
+    }
+
+    public StreamingResultWriter(final String path, final int flushBatch) throws IOException {
+        /* same charset as the FileWriter of the array writer */
+        this(new OutputStreamWriter(Files.newOutputStream(Path.of(path)),
+                Charset.defaultCharset()), flushBatch, BUFFER_SIZE, false);
+        put('[');
+    }
+
+    /**
+     * Creates a streaming writer with the flush batch given by the
+     * {@link Constants#OUTPUT_FLUSH_BATCH} run option.
+     *
+     * @param path the path to the output file
+     * @throws IOException in case of exceptions to writing
+     */
+    public StreamingResultWriter(final String path) throws IOException {
+        this(path, Integer.getInteger(Constants.OUTPUT_FLUSH_BATCH,
+                Constants.DEFAULT_OUTPUT_FLUSH_BATCH));
+    }
+
+    /**
+     * Creates a writer which writes every result on its own line, as soon as
+     * it is produced (used to answer the clients of a server).
+     *
+     * @param out the destination of the results
+     * @return the line-delimited writer
+     */
+    public static StreamingResultWriter lines(final java.io.Writer out) {
+        return new StreamingResultWriter(out, 1, LINE_BUFFER_SIZE, true);
+    }
+
+    @Override
+    public void write(final int id, final CharSequence message) throws IOException {
+        if (!empty) {
+            put(separator);
+        }
+        empty = false;
+
+        put(OBJECT_START);
+        putInt(id);
+        put(MESSAGE_START);
+        for (int i = 0; i < message.length(); i++) {
+            putEscaped(message.charAt(i));
+        }
+        put(OBJECT_END);
+        put(terminator);
+
+        pending++;
+        if (flushBatch > 0 && pending >= flushBatch) {
+            flush();
+            pending = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        put(end);
+        flush();
+        out.close();
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, position);
+        out.flush();
+        position = 0;
+    }
+
+    private void put(final char c) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = c;
+    }
+
+    private void put(final String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put(s.charAt(i));
+        }
+    }
+
+    private void putInt(final int value) throws IOException {
+        long remaining = value;
+        if (remaining < 0) {
+            put('-');
+            remaining = -remaining;
+        }
+
+        int count = 0;
+        do {
+            digits[count++] = (char) ('0' + remaining % DECIMAL_RADIX);
+            remaining /= DECIMAL_RADIX;
+        } while (remaining > 0);
+
+        while (count > 0) {
+            put(digits[--count]);
+        }
+    }
+
+    /**
+     * Writes a char of a string value, escaped like in JSONValue.escape.
+     */
+    private void putEscaped(final char c) throws IOException {
+        switch (c) {
+            case '"' -> put("\\\"");
+            case '\\' -> put("\\\\");
+            case '\b' -> put("\\b");
+            case '\f' -> put("\\f");
+            case '\n' -> put("\\n");
+            case '\r' -> put("\\r");
+            case '\t' -> put("\\t");
+            case '/' -> put("\\/");
+            default -> {
+                if (c <= '\u001F' || (c >= '\u007F' && c <= '\u009F')
+                        || (c >= '\u2000' && c <= '\u20FF')) {
+                    put("\\u");
+                    for (int shift = UNICODE_ESCAPE_SHIFT; shift >= 0; shift -= HEX_DIGIT_BITS) {
+                        put(HEX_DIGITS[(c >> shift) & (HEX_DIGITS.length - 1)]);
+                    }
+                } else {
+                    put(c);
+                }
+            }
+        }
+    }
+}
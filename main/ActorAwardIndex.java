@@ -0,0 +1,70 @@
+package main;
+
+import actor.Actor;
+import actor.ActorsAwards;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Index of the actors by award type, used by the "awards" actor query. Each
+ * award type has the set of the actors (by their position in the database)
+ * which have at least one award of that type, so the filter of several award
+ * types is an intersection of bit sets.
+ */
+public final class ActorAwardIndex {
+
+    private final Map<ActorsAwards, BitSet> byAward = new EnumMap<>(ActorsAwards.class);
+    /**
+     * The actors with an award of a type which is not in ActorsAwards
+     */
+    private final BitSet unknownAward = new BitSet();
+    /**
+     * The actors with a positive total number of awards
+     */
+    private final BitSet awarded = new BitSet();
+
+    /**
+     * Indexes the awards of an actor.
+     *
+     * @param position the position of the actor in the database
+     * @param actor the actor
+     */
+    public void add(final int position, final Actor actor) {
+        for (ActorsAwards award : actor.getAwards().keySet()) {
+            byAward.computeIfAbsent(award, key -> new BitSet()).set(position);
+        }
+        if (actor.hasAward(null)) {
+            unknownAward.set(position);
+        }
+        if (actor.getNrOfAwards() > 0) {
+            awarded.set(position);
+        }
+    }
+
+    /**
+     * Finds the actors with a positive total number of awards which have an
+     * award of every given type.
+     *
+     * @param awards the award types (null stands for an unknown type)
+     * @return a new set of the positions of the found actors
+     */
+    public BitSet find(final Collection<ActorsAwards> awards) {
+        BitSet result = (BitSet) awarded.clone();
+        for (ActorsAwards award : awards) {
+            if (award == null) {
+                result.and(unknownAward);
+            } else {
+                BitSet actors = byAward.get(award);
+                if (actors == null) {
+                    result.clear();
+                    break;
+                }
+                result.and(actors);
+            }
+        }
+        return result;
+    }
+}
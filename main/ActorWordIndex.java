@@ -0,0 +1,177 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index of the words of the career descriptions of the actors, used
+ * by the "filter_description" actor query.
+ * <p>
+ * The query looks for " word " in the description, after the description was
+ * lowercased and every character which is not a letter or a digit was replaced
+ * by a space. So a word of letters and digits matches exactly the actors whose
+ * normalized description has it as a token with a space on each side: the first
+ * and the last tokens of a description do not match, since nothing pads them.
+ * Only these padded tokens are indexed, each with the sorted list of the actors
+ * (by their position in the database) which contain it. The filter words which
+ * are not made only of letters and digits must still be checked on the whole
+ * description.
+ */
+public final class ActorWordIndex {
+
+    private static final Pattern NOT_ALPHANUMERIC = Pattern.compile("[^a-zA-Z0-9]");
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /**
+     * Sorted actor positions of a token.
+     */
+    private static final class Postings {
+        private int[] actors = new int[DEFAULT_CAPACITY];
+        private int size;
+
+        private void add(final int actor) {
+            /* a token repeated in a description is indexed once */
+            if (size > 0 && actors[size - 1] == actor) {
+                return;
+            }
+            if (size == actors.length) {
+                actors = Arrays.copyOf(actors, 2 * size);
+            }
+            actors[size++] = actor;
+        }
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /**
+     * Returns the token to be looked up in the index for a word of the filter.
+     *
+     * @param word the word of the filter
+     * @return the lowercased word, or null if the word is not made only of
+     *         letters and digits and must be checked on the whole description
+     */
+    public static String toToken(final String word) {
+        String padded = (" " + word + " ").toLowerCase();
+        if (padded.length() <= 2 || padded.charAt(0) != ' '
+                || padded.charAt(padded.length() - 1) != ' ') {
+            return null;
+        }
+
+        for (int i = 1; i < padded.length() - 1; i++) {
+            if (!isAlphanumeric(padded.charAt(i))) {
+                return null;
+            }
+        }
+        return padded.substring(1, padded.length() - 1);
+    }
+
+    /**
+     * Checks the filter of a word on a description, without the index.
+     *
+     * @param description the career description of an actor
+     * @param word the word of the filter
+     * @return true if the description contains the word
+     */
+    public static boolean matches(final String description, final String word) {
+        return NOT_ALPHANUMERIC.matcher(description.toLowerCase()).replaceAll(" ")
+                .contains((" " + word + " ").toLowerCase());
+    }
+
+    /**
+     * Indexes the description of an actor. The actors must be added in the
+     * order of their positions.
+     *
+     * @param actor the position of the actor in the database
+     * @param description the career description of the actor
+     */
+    public void add(final int actor, final String description) {
+        if (description == null) {
+            return;
+        }
+
+        /* the replaced characters only separate the tokens, so the tokens are
+           the runs of letters and digits of the lowercased description */
+        String lowercase = description.toLowerCase();
+        int length = lowercase.length();
+        int start = 0;
+        while (start < length) {
+            if (!isAlphanumeric(lowercase.charAt(start))) {
+                start++;
+                continue;
+            }
+
+            int end = start;
+            while (end < length && isAlphanumeric(lowercase.charAt(end))) {
+                end++;
+            }
+            if (start > 0 && end < length) {
+                postings.computeIfAbsent(lowercase.substring(start, end), k -> new Postings())
+                        .add(actor);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Finds the actors whose descriptions contain all the given tokens. The
+     * posting lists are intersected from the shortest one.
+     *
+     * @param tokens the tokens, as returned by {@link #toToken(String)}
+     * @return the sorted positions of the actors
+     */
+    public int[] find(final Collection<String> tokens) {
+        List<Postings> lists = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            Postings list = postings.get(token);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).actors, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = intersect(result, size, lists.get(i));
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Checks if a char of a lowercased string is a letter or a digit which is
+     * kept by the normalization (the uppercase letters are already lowercased).
+     */
+    private static boolean isAlphanumeric(final char c) {
+        return c >= 'a' && c <= 'z' || c >= '0' && c <= '9';
+    }
+
+    /**
+     * Keeps, at the beginning of the result, the actors which are also in the
+     * given list.
+     *
+     * @return the new size of the result
+     */
+    private static int intersect(final int[] result, final int size, final Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < list.size; i++) {
+            while (j < list.size && list.actors[j] < result[i]) {
+                j++;
+            }
+            if (j < list.size && list.actors[j] == result[i]) {
+                result[kept++] = result[i];
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,474 @@
+package main;
+
+import actions.Commands;
+import common.Constants;
+import entertainment.Show;
+import fileio.InputLoader;
+import user.User;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of the applied commands (views, favorites and ratings), so a
+ * database can be recovered after a crash from its last snapshot and the log
+ * written since that snapshot.
+ * <p>
+ * A record holds the type of the command, the user id and the show id, and for
+ * a rating, also the season and the grade. The records are collected in memory
+ * and committed in groups by a background thread: a group is written and synced
+ * to the disk when it has groupSize records, or every syncMillis milliseconds,
+ * so a crash loses at most the commands of the last group (and those appended
+ * while it was handed to the thread). The commands never wait for the disk.
+ * <p>
+ * The log must start from the state of the snapshot it is replayed on (or of
+ * the JSON input, if there is no snapshot), since the ids of the records are
+ * the dense ids of that database. A {@link #checkpoint(Database, Path)} writes a
+ * new snapshot and starts a new, empty log. Every log has a random id in its
+ * header, and the snapshot records the id and the length of the log it holds,
+ * so a log which was not reset after its snapshot (because of a crash) is
+ * replayed only from that length.
+ */
+public final class CommandLog implements Closeable {
+
+    private static final int MAGIC = 0x5644424C;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    private static final byte VIEW = 0;
+    private static final byte FAVORITE = 1;
+    private static final byte RATING = 2;
+    private static final int RECORD_SIZE = 1 + 2 * Integer.BYTES;
+    private static final int RATING_RECORD_SIZE = RECORD_SIZE + Integer.BYTES + Double.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Show id of the views of a title which is not in the database
+     */
+    private static final int UNKNOWN_SHOW_ID = -1;
+
+    private final Path path;
+    /**
+     * The log file (guarded by commitLock)
+     */
+    private FileChannel channel;
+    /**
+     * The id of the log file (guarded by commitLock)
+     */
+    private long logId;
+    private final int groupSize;
+    private final ScheduledExecutorService syncer;
+    /**
+     * Guards the write of a group to the file
+     */
+    private final Object commitLock = new Object();
+    /**
+     * The records of the current group (guarded by this)
+     */
+    private ByteBuffer group = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * The buffer of the group which is being written (guarded by commitLock)
+     */
+    private ByteBuffer committing = ByteBuffer.allocate(BUFFER_SIZE);
+    private int groupRecords;
+    /**
+     * Whether a full group was handed to the sync thread and not yet committed
+     * (guarded by this)
+     */
+    private boolean commitRequested;
+    private volatile IOException failure;
+
+    private CommandLog(final Path path, final FileChannel channel, final long logId,
+                       final int groupSize, final int syncMillis) {
+        this.path = path;
+        this.channel = channel;
+        this.logId = logId;
+        this.groupSize = Math.max(1, groupSize);
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "command-log-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::commitQuietly, syncMillis, syncMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a log for appending, with the group size and the sync interval given
+     * by the {@link Constants#COMMAND_LOG_GROUP} and
+     * {@link Constants#COMMAND_LOG_SYNC_MILLIS} run options. A new log is created
+     * if the file does not exist, and an incomplete record at the end of an
+     * existing log (written during a crash) is dropped.
+     *
+     * @param path the log file
+     * @return the opened log
+     * @throws IOException in case of exceptions to reading / writing, or if the
+     *                     file is not a command log
+     */
+    public static CommandLog open(final Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long logId;
+        try {
+            if (channel.size() == 0) {
+                logId = newLogId();
+                writeHeader(channel, logId);
+            } else {
+                try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+                    logId = readHeader(in, path);
+                }
+                channel.truncate(replay(path, null));
+            }
+            channel.position(channel.size());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        return new CommandLog(path, channel, logId,
+                Integer.getInteger(Constants.COMMAND_LOG_GROUP,
+                        Constants.DEFAULT_COMMAND_LOG_GROUP),
+                Math.max(1, Integer.getInteger(Constants.COMMAND_LOG_SYNC_MILLIS,
+                        Constants.DEFAULT_COMMAND_LOG_SYNC_MILLIS)));
+    }
+
+    /**
+     * Recovers a database: the snapshot is loaded (or the JSON input, if there is
+     * no snapshot yet) and the commands of the log which it does not hold are
+     * applied on it.
+     *
+     * @param snapshot the snapshot file
+     * @param log the log
+     * @param inputPath the JSON input, used if the snapshot file does not exist
+     * @return the recovered database
+     * @throws IOException in case of exceptions to reading
+     */
+    public static Database recover(final Path snapshot, final Path log,
+                                   final String inputPath) throws IOException {
+        Database database;
+        DatabaseSnapshot.LogPosition position = null;
+        if (snapshot != null && Files.exists(snapshot)) {
+            position = DatabaseSnapshot.readLogPosition(snapshot);
+            database = DatabaseSnapshot.read(snapshot);
+        } else {
+            database = new Database(new InputLoader(inputPath).readData());
+        }
+
+        if (log != null && Files.exists(log)) {
+            long startTime = System.nanoTime();
+            replay(log, database, position);
+            database.recordLoadTiming("log replay", System.nanoTime() - startTime);
+        }
+
+        return database;
+    }
+
+    /**
+     * Applies the commands of a log on a database. The log ends at its last
+     * complete record.
+     *
+     * @param path the log file
+     * @param database the database, or null to only find the end of the log
+     * @return the length of the log, up to its last complete record
+     * @throws IOException in case of exceptions to reading, or if the file is not
+     *                     a command log (or has a record of an unknown type)
+     */
+    public static long replay(final Path path, final Database database) throws IOException {
+        return replay(path, database, null);
+    }
+
+    /**
+     * Applies the commands of a log on a database, after the records which are
+     * already held by its snapshot.
+     *
+     * @param path the log file
+     * @param database the database, or null to only find the end of the log
+     * @param position the position of the log held by the snapshot of the
+     *                 database, or null if the database holds no commands
+     * @return the length of the log, up to its last complete record
+     * @throws IOException in case of exceptions to reading, or if the file is not
+     *                     a command log (or has a record of an unknown type)
+     */
+    private static long replay(final Path path, final Database database,
+                               final DatabaseSnapshot.LogPosition position)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(path), BUFFER_SIZE))) {
+            long logId = readHeader(in, path);
+            long length = HEADER_SIZE;
+            if (position != null && position.logId() == logId) {
+                /* the log was not reset after the snapshot was written */
+                try {
+                    in.skipNBytes(position.length() - HEADER_SIZE);
+                } catch (EOFException e) {
+                    throw new IOException("The command log " + path
+                            + " is shorter than the part held by the snapshot");
+                }
+                length = position.length();
+            }
+
+            while (true) {
+                int type = in.read();
+                if (type == -1) {
+                    return length;
+                }
+                if (type != VIEW && type != FAVORITE && type != RATING) {
+                    throw new IOException("Unknown command log record " + type + " at byte "
+                            + length + " of " + path);
+                }
+
+                try {
+                    User user;
+                    Show show;
+                    if (database != null) {
+                        user = database.getUser(in.readInt());
+                        show = database.getShow(in.readInt());
+                    } else {
+                        user = null;
+                        show = null;
+                        in.readLong();
+                    }
+
+                    if (type == RATING) {
+                        int season = in.readInt();
+                        double grade = in.readDouble();
+                        if (database != null) {
+                            Commands.applyRating(database, user, show, season, grade);
+                        }
+                        length += RATING_RECORD_SIZE;
+                    } else {
+                        if (database != null) {
+                            apply(database, (byte) type, user, show);
+                        }
+                        length += RECORD_SIZE;
+                    }
+                } catch (EOFException e) {
+                    /* the last record was not completely written */
+                    return length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the header of a log.
+     *
+     * @return the id of the log
+     */
+    private static long readHeader(final DataInputStream in, final Path path)
+            throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a command log: " + path);
+        }
+        return in.readLong();
+    }
+
+    private static void writeHeader(final FileChannel file, final long logId)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION)
+                .putLong(logId);
+        header.flip();
+        while (header.hasRemaining()) {
+            file.write(header);
+        }
+        file.force(true);
+    }
+
+    /**
+     * Returns a random log id, which is never the id of a missing log.
+     */
+    private static long newLogId() {
+        long logId;
+        do {
+            logId = ThreadLocalRandom.current().nextLong();
+        } while (logId == DatabaseSnapshot.NO_LOG);
+        return logId;
+    }
+
+    private static void apply(final Database database, final byte type,
+                              final User user, final Show show) throws IOException {
+        switch (type) {
+            case VIEW -> Commands.applyView(database, user, show);
+            case FAVORITE -> Commands.applyFavorite(database, user, show);
+            default -> throw new IOException("Unknown command log record: " + type);
+        }
+    }
+
+    /**
+     * Checks that the previous groups were written. A command calls it before it
+     * changes the database, so a command is not applied if it cannot be logged
+     * after a write of the log failed.
+     *
+     * @throws IOException the exception of the failed write
+     */
+    public void checkFailure() throws IOException {
+        IOException writeFailure = failure;
+        if (writeFailure != null) {
+            throw new IOException("The command log could not be written", writeFailure);
+        }
+    }
+
+    /**
+     * Appends an applied view command.
+     *
+     * @param user the user
+     * @param show the viewed show (null for a title which is not in the database)
+     */
+    public void view(final User user, final Show show) {
+        append(VIEW, user, show, 0, 0);
+    }
+
+    /**
+     * Appends an applied favorite command.
+     *
+     * @param user the user
+     * @param show the favorite show
+     */
+    public void favorite(final User user, final Show show) {
+        append(FAVORITE, user, show, 0, 0);
+    }
+
+    /**
+     * Appends an applied rating command.
+     *
+     * @param user the user
+     * @param show the rated show
+     * @param season the rated season (0 for a movie)
+     * @param grade the grade
+     */
+    public void rating(final User user, final Show show, final int season,
+                       final double grade) {
+        append(RATING, user, show, season, grade);
+    }
+
+    private void append(final byte type, final User user, final Show show,
+                        final int season, final double grade) {
+        boolean requestCommit;
+        synchronized (this) {
+            if (group.remaining() < RATING_RECORD_SIZE) {
+                ByteBuffer larger = ByteBuffer.allocate(2 * group.capacity());
+                group.flip();
+                group = larger.put(group);
+            }
+
+            group.put(type).putInt(user.getId())
+                    .putInt(show == null ? UNKNOWN_SHOW_ID : show.getId());
+            if (type == RATING) {
+                group.putInt(season).putDouble(grade);
+            }
+            groupRecords++;
+            requestCommit = groupRecords >= groupSize && !commitRequested;
+            if (requestCommit) {
+                commitRequested = true;
+            }
+        }
+
+        if (requestCommit) {
+            /* the write and the sync are done by the sync thread, so the caller
+               (which holds the lock of the user) does not wait for the disk */
+            try {
+                syncer.execute(this::commitQuietly);
+            } catch (RejectedExecutionException e) {
+                /* the log is being closed, which commits the group */
+            }
+        }
+    }
+
+    /**
+     * Writes the current group of records to the file and syncs it to the disk.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    public void commit() throws IOException {
+        synchronized (commitLock) {
+            ByteBuffer records;
+            synchronized (this) {
+                if (group.position() == 0) {
+                    return;
+                }
+                records = group;
+                group = committing;
+                groupRecords = 0;
+                commitRequested = false;
+            }
+
+            committing = records;
+            records.flip();
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+            channel.force(false);
+            records.clear();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the database, which holds all the commands of the log,
+     * and then replaces the log by a new, empty one. No command may run during
+     * the checkpoint. If the process stops before the log is replaced, the
+     * snapshot knows the length of the log it holds, so the recovery replays
+     * only the records appended after it.
+     *
+     * @param database the database of the log
+     * @param snapshot the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public void checkpoint(final Database database, final Path snapshot) throws IOException {
+        synchronized (commitLock) {
+            commit();
+            DatabaseSnapshot.write(database, snapshot,
+                    new DatabaseSnapshot.LogPosition(logId, channel.position()));
+
+            long newLogId = newLogId();
+            Path emptyLog = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel file = FileChannel.open(emptyLog, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(file, newLogId);
+            }
+            Files.move(emptyLog, path, StandardCopyOption.ATOMIC_MOVE);
+
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            logId = newLogId;
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            /* reported to the next command */
+            failure = e;
+        }
+    }
+
+    /**
+     * Commits the last group and closes the file.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        syncer.shutdown();
+        synchronized (commitLock) {
+            try {
+                commit();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package main;
 
+import actions.ActionMetrics;
 import fileio.UserInputData;
 import fileio.ActorInputData;
 import fileio.Input;
@@ -7,103 +8,426 @@ import fileio.MovieInputData;
 import fileio.SerialInputData;
 import user.User;
 import actor.Actor;
+import entertainment.Genre;
 import entertainment.Movie;
 import entertainment.Serial;
 import entertainment.Show;
 
+import utils.StripedLocks;
 import utils.Utils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The databased used for storing the data from input.
+ * Besides the lists of entities, it keeps hash indexes (title -> Show,
+ * username -> User), so every name lookup is O(1). The actors are never
+ * looked up by name (they are reached through the casts of the shows and the
+ * indexes of the actor queries), so they have no name index.
  */
 public final class Database {
 
+    private static final int USER_LOCK_STRIPES = 64;
+    private static final int RATING_LOCK_STRIPES = 64;
+
     private final List<Actor> actorsData = new ArrayList<>();
     private final List<User> usersData = new ArrayList<>();
     private final List<Show> showsData = new ArrayList<>();
 
+    private final Map<String, User> usersIndex = new HashMap<>();
+    private final Map<String, Show> showsIndex = new HashMap<>();
+    private final Map<Genre, List<Show>> genresIndex = new HashMap<>();
+    private final Map<Integer, List<Show>> moviesByYear = new HashMap<>();
+    private final Map<Integer, List<Show>> serialsByYear = new HashMap<>();
+    private final ActorWordIndex actorWordIndex = new ActorWordIndex();
+    private final ActorAwardIndex actorAwardIndex = new ActorAwardIndex();
+
+    private final List<Actor> actorsView = Collections.unmodifiableList(actorsData);
+    private final List<User> usersView = Collections.unmodifiableList(usersData);
+    private final List<Show> showsView = Collections.unmodifiableList(showsData);
+    private final Map<String, User> usersIndexView = Collections.unmodifiableMap(usersIndex);
+    private final Map<String, Show> showsIndexView = Collections.unmodifiableMap(showsIndex);
+
+    private final Map<String, Long> loadTimings = new LinkedHashMap<>();
+
+    /**
+     * Locks of the users, taken by the commands which change a user
+     */
+    private final StripedLocks userLocks = new StripedLocks(USER_LOCK_STRIPES);
+    /**
+     * Locks of the shows, taken by the ratings while they change and log a show
+     */
+    private final StripedLocks ratingLocks = new StripedLocks(RATING_LOCK_STRIPES);
+
+    private ShowLeaderboards leaderboards;
+    private volatile CommandLog commandLog;
+    private volatile ActionMetrics metrics;
+
+    /**
+     * Initializer of an empty database, filled entity by entity by a
+     * {@link DatabaseBuilder}.
+     */
+    Database() {
+    }
+
     /**
-     * Initializer of the database.
+     * Initializer of the database. The shows are loaded first, so the title
+     * index can be used as a dictionary for all the cross-references. The
+     * actors and the users are then linked in parallel: the actor phase only
+     * touches the cast of the shows, while the user phase only touches the
+     * views and favorites counters, so the two phases never write the same data.
      *
      * @param input input read from JSON files
      */
     public Database(final Input input) {
+        long startTime = System.nanoTime();
 
-        /* Add the movies into the show field of the database. */
+        /* Add the movies and the serials into the show field of the database. */
         for (MovieInputData currentMovie : input.getMovies()) {
-            Movie newMovie = new Movie(currentMovie.getTitle(),
-                    Utils.stringListToGenreList(currentMovie.getGenres()),
-                    currentMovie.getYear(), currentMovie.getDuration());
-            showsData.add(newMovie);
+            loadMovie(currentMovie);
         }
-
-        /* Add the serials into the show field of the database. */
         for (SerialInputData currentSerial : input.getSerials()) {
-            Serial newSerial = new Serial(currentSerial.getTitle(),
-                    Utils.stringListToGenreList(currentSerial.getGenres()),
-                    currentSerial.getNumberSeason(), currentSerial.getSeasons(),
-                    currentSerial.getYear());
-            showsData.add(newSerial);
+            loadSerial(currentSerial);
         }
+        long showsTime = System.nanoTime();
 
-        /* Add the actors into the actor field of the database and
-         * links every new actor with its filmography (Show objects) */
-        for (ActorInputData currentActor : input.getActors()) {
-            Actor newActor = new Actor(currentActor.getName(),
-                    currentActor.getCareerDescription(), currentActor.getAwards());
-
-            for (String showName : currentActor.getFilmography()) {
-                Show show = Utils.stringToShow((ArrayList<Show>) showsData, showName);
-                if (show != null) {
-                    newActor.getFilmography().add(show);
-                    show.getCast().add(newActor);
-                }
+        CompletableFuture<Long> actorsPhase = CompletableFuture.supplyAsync(() -> {
+            long actorsStart = System.nanoTime();
+            for (ActorInputData currentActor : input.getActors()) {
+                loadActor(currentActor);
             }
+            return System.nanoTime() - actorsStart;
+        });
 
-            actorsData.add(newActor);
+        long usersStart = System.nanoTime();
+        for (UserInputData currentUser : input.getUsers()) {
+            loadUser(currentUser);
         }
+        long usersDuration = System.nanoTime() - usersStart;
 
-        /* Add the users into the user field of the database. It also
-         * initializes the user's history and favorites fields (list and map of Shows)
-         * and updates the total number of views and adds at favorites for each show. */
-        for (UserInputData currentUser : input.getUsers()) {
-            User newUser = new User(currentUser.getUsername(), currentUser.getSubscriptionType());
+        long actorsDuration;
+        try {
+            actorsDuration = actorsPhase.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
 
-            for (String showName : currentUser.getFavoriteMovies()) {
-                Show show = Utils.stringToShow((ArrayList<Show>) showsData, showName);
-                if (show != null) {
-                    newUser.getFavoriteMovies().add(show);
-                    show.setNrOfAddsAtFavorites(show.getNrOfAddsAtFavorites() + 1);
-                }
+        recordLoadTiming("shows", showsTime - startTime);
+        recordLoadTiming("actors", actorsDuration);
+        recordLoadTiming("users", usersDuration);
+        buildLeaderboards();
+        recordLoadTiming("total", System.nanoTime() - startTime);
+    }
+
+    /**
+     * Builds the ordered indexes of the shows. Must be called once,
+     * after all the shows and users were loaded.
+     */
+    void buildLeaderboards() {
+        long leaderboardsStart = System.nanoTime();
+        leaderboards = new ShowLeaderboards(showsData);
+        recordLoadTiming("leaderboards", System.nanoTime() - leaderboardsStart);
+    }
+
+    /**
+     * Records the duration of a phase of the database construction.
+     *
+     * @param phase the name of the phase
+     * @param nanos the duration of the phase, in nanoseconds
+     */
+    void recordLoadTiming(final String phase, final long nanos) {
+        loadTimings.put(phase, toMillis(nanos));
+    }
+
+    /**
+     * Adds a movie into the show field of the database.
+     *
+     * @param currentMovie the movie read from input
+     */
+    void loadMovie(final MovieInputData currentMovie) {
+        Movie newMovie = new Movie(currentMovie.getTitle(),
+                Utils.stringListToGenreList(currentMovie.getGenres()),
+                currentMovie.getYear(), currentMovie.getDuration());
+        addShow(newMovie);
+    }
+
+    /**
+     * Adds a serial into the show field of the database.
+     *
+     * @param currentSerial the serial read from input
+     */
+    void loadSerial(final SerialInputData currentSerial) {
+        Serial newSerial = new Serial(currentSerial.getTitle(),
+                Utils.stringListToGenreList(currentSerial.getGenres()),
+                currentSerial.getNumberSeason(), currentSerial.getSeasons(),
+                currentSerial.getYear());
+        addShow(newSerial);
+    }
+
+    /**
+     * Adds an actor into the actor field of the database and
+     * links the new actor with its filmography (Show objects).
+     *
+     * @param currentActor the actor read from input
+     */
+    void loadActor(final ActorInputData currentActor) {
+        Actor newActor = new Actor(currentActor.getName(),
+                currentActor.getCareerDescription(), currentActor.getAwards());
+
+        for (String showName : currentActor.getFilmography()) {
+            Show show = Utils.stringToShow(showsIndex, showName);
+            if (show != null) {
+                newActor.getFilmography().add(show);
+                show.getCast().add(newActor);
+            }
+        }
+        newActor.refreshRatingAverage();
+
+        addActor(newActor);
+    }
+
+    /**
+     * Adds a user into the user field of the database. It also
+     * initializes the user's history and favorites fields (list and map of Shows)
+     * and updates the total number of views and adds at favorites for each show.
+     *
+     * @param currentUser the user read from input
+     */
+    void loadUser(final UserInputData currentUser) {
+        User newUser = new User(currentUser.getUsername(), currentUser.getSubscriptionType());
+
+        for (String showName : currentUser.getFavoriteMovies()) {
+            Show show = Utils.stringToShow(showsIndex, showName);
+            if (show != null) {
+                newUser.addFavorite(show);
+                show.setNrOfAddsAtFavorites(show.getNrOfAddsAtFavorites() + 1);
             }
+        }
+
+        for (Map.Entry<String, Integer> entry : currentUser.getHistory().entrySet()) {
+            Show currentShow = Utils.stringToShow(showsIndex, entry.getKey());
+            if (currentShow != null) {
+                currentShow.setNrOfViews(currentShow.getNrOfViews() + entry.getValue());
+            }
+            newUser.setViews(currentShow, entry.getValue());
+        }
+
+        addUser(newUser);
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
 
-            for (Map.Entry<String, Integer> entry : currentUser.getHistory().entrySet()) {
-                Show currentShow =
-                        Utils.stringToShow((ArrayList<Show>) showsData, entry.getKey());
-                if (currentShow != null) {
-                    currentShow.setNrOfViews(currentShow.getNrOfViews() + entry.getValue());
+    /**
+     * Adds a show to the database, gives it the next dense id and indexes it
+     * by title, year and genres. If more shows share the same title, the first
+     * one added is the one found by lookups.
+     *
+     * @param show the show to be added
+     */
+    public void addShow(final Show show) {
+        show.setId(showsData.size());
+        showsData.add(show);
+        showsIndex.putIfAbsent(show.getTitle(), show);
+
+        Map<Integer, List<Show>> yearIndex = show instanceof Movie ? moviesByYear : serialsByYear;
+        yearIndex.computeIfAbsent(show.getYear(), k -> new ArrayList<>()).add(show);
+
+        if (show.getGenres() != null) {
+            for (Genre genre : show.getGenres()) {
+                List<Show> genreShows = genresIndex.computeIfAbsent(genre, k -> new ArrayList<>());
+                /* a genre listed twice must not add the show twice */
+                if (genreShows.isEmpty() || genreShows.get(genreShows.size() - 1) != show) {
+                    genreShows.add(show);
                 }
-                newUser.getHistory().put(currentShow, entry.getValue());
             }
+        }
+    }
 
-            usersData.add(newUser);
+    /**
+     * Adds an actor to the database and indexes it by the words of its
+     * career description and by its awards.
+     *
+     * @param actor the actor to be added
+     */
+    public void addActor(final Actor actor) {
+        actorWordIndex.add(actorsData.size(), actor.getCareerDescription());
+        actorAwardIndex.add(actorsData.size(), actor);
+        actorsData.add(actor);
+    }
+
+    /**
+     * Adds a user to the database, gives it the next dense id and indexes it by username.
+     *
+     * @param user the user to be added
+     */
+    public void addUser(final User user) {
+        user.setId(usersData.size());
+        usersData.add(user);
+        usersIndex.putIfAbsent(user.getUsername(), user);
+    }
+
+    /**
+     * Returns the show with the given dense id.
+     *
+     * @param id the id of the show
+     * @return the show, or null if there is no show with that id
+     */
+    public Show getShow(final int id) {
+        if (id < 0 || id >= showsData.size()) {
+            return null;
         }
+
+        return showsData.get(id);
     }
 
+    /**
+     * Returns the user with the given dense id.
+     *
+     * @param id the id of the user
+     * @return the user, or null if there is no user with that id
+     */
+    public User getUser(final int id) {
+        if (id < 0 || id >= usersData.size()) {
+            return null;
+        }
+
+        return usersData.get(id);
+    }
 
     public List<Show> getShowsData() {
-        return showsData;
+        return showsView;
     }
 
     public List<Actor> getActorsData() {
-        return actorsData;
+        return actorsView;
     }
 
     public List<User> getUsersData() {
-        return usersData;
+        return usersView;
+    }
+
+    public Map<String, Show> getShowsIndex() {
+        return showsIndexView;
+    }
+
+    public Map<String, User> getUsersIndex() {
+        return usersIndexView;
+    }
+
+    /**
+     * Returns the shows having the given genre, in the order of the database.
+     *
+     * @param genre the genre of the shows (null for the genres which could not be parsed)
+     * @return a read-only list of shows
+     */
+    public List<Show> getShowsByGenre(final Genre genre) {
+        List<Show> genreShows = genresIndex.get(genre);
+        if (genreShows == null) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(genreShows);
+    }
+
+    /**
+     * Returns the movies or the serials released in the given year,
+     * in the order of the database.
+     *
+     * @param year the release year
+     * @param movies true for the movies, false for the serials
+     * @return a read-only list of shows
+     */
+    public List<Show> getShowsByYear(final int year, final boolean movies) {
+        List<Show> yearShows = (movies ? moviesByYear : serialsByYear).get(year);
+        if (yearShows == null) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(yearShows);
+    }
+
+    public ActorWordIndex getActorWordIndex() {
+        return actorWordIndex;
+    }
+
+    public ActorAwardIndex getActorAwardIndex() {
+        return actorAwardIndex;
+    }
+
+    public ShowLeaderboards getLeaderboards() {
+        return leaderboards;
+    }
+
+    public CommandLog getCommandLog() {
+        return commandLog;
+    }
+
+    /**
+     * Sets the log to which the applied commands are appended.
+     *
+     * @param commandLog the log, or null to stop logging
+     */
+    public void setCommandLog(final CommandLog commandLog) {
+        this.commandLog = commandLog;
+    }
+
+    public ActionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics in which the executed actions are recorded.
+     *
+     * @param metrics the metrics, or null to stop recording
+     */
+    public void setMetrics(final ActionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the lock which guards the state of a user (history, favorites and
+     * ratings) when commands are executed from several threads.
+     *
+     * @param user the user
+     * @return the lock object, shared with the other users of the same stripe
+     */
+    public Object getUserLock(final User user) {
+        return userLocks.get(user.getId());
+    }
+
+    /**
+     * Returns the lock which orders the ratings of a show, so they are written
+     * to the command log in the order in which their grades are summed. It is
+     * taken after the lock of the user, and no user or rating lock is taken
+     * while it is held.
+     *
+     * @param show the rated show
+     * @return the lock object, shared with the other shows of the same stripe
+     */
+    public Object getRatingLock(final Show show) {
+        return ratingLocks.get(show.getId());
+    }
+
+    /**
+     * Returns how long each phase of the database construction took
+     * (shows, actors, users, leaderboards and the total time), in milliseconds.
+     *
+     * @return the load time of each phase, in the order they were recorded
+     */
+    public Map<String, Long> getLoadTimings() {
+        return Collections.unmodifiableMap(loadTimings);
     }
 }
@@ -0,0 +1,121 @@
+package main;
+
+import fileio.ActionInputData;
+import fileio.ActorInputData;
+import fileio.InputListener;
+import fileio.MovieInputData;
+import fileio.SerialInputData;
+import fileio.UserInputData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a database from the entities of a {@link fileio.StreamingInputLoader}.
+ * The movies are added as soon as they are read. The serials are added after all
+ * the movies, as {@link Database#Database(fileio.Input)} does, so the shows get
+ * the same ids and order whatever the order of the sections. The actors and the
+ * users are linked with the shows by title, so they are kept only until all the
+ * shows are known (when the first action arrives, or when {@link #build()} is called).
+ * The pending serials, actors and users take memory proportional to the size of
+ * the database, besides the database itself.
+ * The actions are then passed to the action listener, together with the database.
+ */
+public final class DatabaseBuilder implements InputListener {
+
+    /**
+     * Receives the actions of the input, after the database was built.
+     */
+    public interface ActionListener {
+        /**
+         * Called for every action of the input.
+         *
+         * @param database the built database
+         * @param action the action read from input
+         * @throws IOException in case of exceptions to writing the result of the action
+         */
+        void action(Database database, ActionInputData action) throws IOException;
+    }
+
+    private final Database database = new Database();
+    private final ActionListener actionListener;
+    private List<ActorInputData> pendingActors = new ArrayList<>();
+    private List<UserInputData> pendingUsers = new ArrayList<>();
+    private List<SerialInputData> pendingSerials = new ArrayList<>();
+    private long showsDuration;
+    private boolean built;
+
+    public DatabaseBuilder(final ActionListener actionListener) {
+        this.actionListener = actionListener;
+    }
+
+    @Override
+    public void actor(final ActorInputData actor) {
+        pendingActors.add(actor);
+    }
+
+    @Override
+    public void user(final UserInputData user) {
+        pendingUsers.add(user);
+    }
+
+    @Override
+    public void movie(final MovieInputData movie) {
+        long start = System.nanoTime();
+        database.loadMovie(movie);
+        showsDuration += System.nanoTime() - start;
+    }
+
+    @Override
+    public void serial(final SerialInputData serial) {
+        pendingSerials.add(serial);
+    }
+
+    @Override
+    public void action(final ActionInputData action) throws IOException {
+        actionListener.action(build(), action);
+    }
+
+    /**
+     * Adds the pending serials, links the pending actors and users and builds
+     * the indexes of the database.
+     * The following calls return the same database.
+     *
+     * @return the built database
+     */
+    public Database build() {
+        if (built) {
+            return database;
+        }
+
+        long serialsStart = System.nanoTime();
+        for (SerialInputData serial : pendingSerials) {
+            database.loadSerial(serial);
+        }
+        pendingSerials = null;
+        showsDuration += System.nanoTime() - serialsStart;
+
+        long actorsStart = System.nanoTime();
+        for (ActorInputData actor : pendingActors) {
+            database.loadActor(actor);
+        }
+        pendingActors = null;
+
+        long usersStart = System.nanoTime();
+        for (UserInputData user : pendingUsers) {
+            database.loadUser(user);
+        }
+        pendingUsers = null;
+        long usersEnd = System.nanoTime();
+
+        database.recordLoadTiming("shows", showsDuration);
+        database.recordLoadTiming("actors", usersStart - actorsStart);
+        database.recordLoadTiming("users", usersEnd - usersStart);
+        database.buildLeaderboards();
+        database.recordLoadTiming("total", showsDuration + System.nanoTime() - actorsStart);
+
+        built = true;
+        return database;
+    }
+}
@@ -0,0 +1,432 @@
+package main;
+
+import actor.Actor;
+import actor.ActorsAwards;
+import entertainment.Genre;
+import entertainment.Movie;
+import entertainment.Season;
+import entertainment.Serial;
+import entertainment.Show;
+import user.User;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a database, with everything changed by the commands
+ * (views, favorites, ratings and counters), so a database can be restored
+ * without parsing the JSON input and replaying the actions.
+ * <p>
+ * The format is a header (magic number, version and the position of the
+ * command log held by the snapshot) followed by the shows, the actors and the
+ * users, in the order of the database. The references to
+ * shows are written as show ids, which are the same after the reload, since
+ * the shows are added in the same order. The cached values (averages, indexes
+ * and leaderboards) are not written, they are rebuilt from the restored data.
+ */
+public final class DatabaseSnapshot {
+
+    /**
+     * Log id of a snapshot which was not written from a command log
+     */
+    public static final long NO_LOG = 0;
+
+    private static final int MAGIC = 0x56444253;
+    private static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int NULL_LENGTH = -1;
+    private static final int NULL_ORDINAL = -1;
+    private static final byte MOVIE = 0;
+    private static final byte SERIAL = 1;
+
+    private static final Genre[] GENRES = Genre.values();
+    private static final ActorsAwards[] AWARDS = ActorsAwards.values();
+
+    /**
+     * The part of a command log held by a snapshot: the id of the log and its
+     * length when the snapshot was written.
+     *
+     * @param logId the id of the log, or NO_LOG
+     * @param length the length of the log, in bytes
+     */
+    public record LogPosition(long logId, long length) {
+    }
+
+    /**
+     * for coding style
+     */
+    private DatabaseSnapshot() {
+    }
+
+    /**
+     * Writes the snapshot of a database which holds no command log. The database
+     * must not be changed while it is written.
+     *
+     * @param database the database
+     * @param path the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final Database database, final Path path) throws IOException {
+        write(database, path, new LogPosition(NO_LOG, 0));
+    }
+
+    /**
+     * Writes the snapshot of a database. The database must not be changed
+     * while it is written. The snapshot is written and synced to a temporary
+     * file, which then replaces the snapshot file in one step, so a crash while
+     * it is written leaves the previous snapshot.
+     *
+     * @param database the database
+     * @param path the snapshot file
+     * @param position the part of the command log whose commands are applied
+     *                 on the database
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final Database database, final Path path,
+                             final LogPosition position) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(position.logId());
+            out.writeLong(position.length());
+
+            out.writeInt(database.getShowsData().size());
+            for (Show show : database.getShowsData()) {
+                writeShow(out, show);
+            }
+
+            out.writeInt(database.getActorsData().size());
+            for (Actor actor : database.getActorsData()) {
+                writeActor(out, actor);
+            }
+
+            out.writeInt(database.getUsersData().size());
+            for (User user : database.getUsersData()) {
+                writeUser(out, user);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores a database from a snapshot.
+     *
+     * @param path the snapshot file
+     * @return the database, in the state it had when the snapshot was written
+     * @throws IOException in case of exceptions to reading, or if the file is not
+     *                     a snapshot of a known version
+     */
+    public static Database read(final Path path) throws IOException {
+        long startTime = System.nanoTime();
+        Database database = new Database();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(path), BUFFER_SIZE))) {
+            readHeader(in, path);
+
+            int nrOfShows = in.readInt();
+            for (int i = 0; i < nrOfShows; i++) {
+                database.addShow(readShow(in));
+            }
+
+            int nrOfActors = in.readInt();
+            for (int i = 0; i < nrOfActors; i++) {
+                database.addActor(readActor(in, database));
+            }
+
+            int nrOfUsers = in.readInt();
+            for (int i = 0; i < nrOfUsers; i++) {
+                database.addUser(readUser(in, database));
+            }
+        }
+
+        database.buildLeaderboards();
+        database.recordLoadTiming("snapshot", System.nanoTime() - startTime);
+        return database;
+    }
+
+    /**
+     * Reads the part of the command log held by a snapshot.
+     *
+     * @param path the snapshot file
+     * @return the position of the log when the snapshot was written
+     * @throws IOException in case of exceptions to reading, or if the file is not
+     *                     a snapshot of a known version
+     */
+    public static LogPosition readLogPosition(final Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            return readHeader(in, path);
+        }
+    }
+
+    private static LogPosition readHeader(final DataInputStream in, final Path path)
+            throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a database snapshot: " + path);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unknown snapshot version " + version + ": " + path);
+        }
+        return new LogPosition(in.readLong(), in.readLong());
+    }
+
+    private static void writeShow(final DataOutputStream out, final Show show)
+            throws IOException {
+        out.writeByte(show instanceof Movie ? MOVIE : SERIAL);
+        writeString(out, show.getTitle());
+        out.writeInt(show.getYear());
+        writeGenres(out, show.getGenres());
+        out.writeInt(show.getNrOfViews());
+        out.writeInt(show.getNrOfAddsAtFavorites());
+
+        if (show instanceof Movie movie) {
+            out.writeInt(movie.getDuration());
+            writeRatings(out, movie.getRatings());
+        } else {
+            Serial serial = (Serial) show;
+            out.writeInt(serial.getNumberOfSeasons());
+            if (serial.getSeasons() == null) {
+                out.writeInt(NULL_LENGTH);
+                return;
+            }
+            out.writeInt(serial.getSeasons().size());
+            for (Season season : serial.getSeasons()) {
+                out.writeInt(season.getCurrentSeason());
+                out.writeInt(season.getDuration());
+                writeRatings(out, season.getRatings());
+            }
+        }
+    }
+
+    private static Show readShow(final DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        String title = readString(in);
+        int year = in.readInt();
+        ArrayList<Genre> genres = readGenres(in);
+        int nrOfViews = in.readInt();
+        int nrOfAddsAtFavorites = in.readInt();
+
+        Show show;
+        if (type == MOVIE) {
+            Movie movie = new Movie(title, genres, year, in.readInt());
+            for (double grade : readRatings(in)) {
+                movie.addRating(grade);
+            }
+            show = movie;
+        } else {
+            int numberOfSeasons = in.readInt();
+            int nrOfSeasons = in.readInt();
+            ArrayList<Season> seasons = null;
+            if (nrOfSeasons != NULL_LENGTH) {
+                seasons = new ArrayList<>(nrOfSeasons);
+                for (int i = 0; i < nrOfSeasons; i++) {
+                    Season season = new Season(in.readInt(), in.readInt());
+                    season.setRatings(readRatings(in));
+                    seasons.add(season);
+                }
+            }
+            show = new Serial(title, genres, numberOfSeasons, seasons, year);
+        }
+
+        show.setNrOfViews(nrOfViews);
+        show.setNrOfAddsAtFavorites(nrOfAddsAtFavorites);
+        return show;
+    }
+
+    private static void writeActor(final DataOutputStream out, final Actor actor)
+            throws IOException {
+        writeString(out, actor.getName());
+        writeString(out, actor.getCareerDescription());
+
+        Map<ActorsAwards, Integer> awards = actor.getAwards();
+        Integer unknownAwards = actor.getUnknownAwards();
+        out.writeInt(awards.size() + (unknownAwards != null ? 1 : 0));
+        for (Map.Entry<ActorsAwards, Integer> award : awards.entrySet()) {
+            out.writeInt(award.getKey().ordinal());
+            out.writeInt(award.getValue());
+        }
+        if (unknownAwards != null) {
+            out.writeInt(NULL_ORDINAL);
+            out.writeInt(unknownAwards);
+        }
+
+        out.writeInt(actor.getFilmography().size());
+        for (Show show : actor.getFilmography()) {
+            out.writeInt(show.getId());
+        }
+    }
+
+    private static Actor readActor(final DataInputStream in, final Database database)
+            throws IOException {
+        String name = readString(in);
+        String careerDescription = readString(in);
+
+        int nrOfAwards = in.readInt();
+        Map<ActorsAwards, Integer> awards = null;
+        if (nrOfAwards != NULL_LENGTH) {
+            awards = new HashMap<>();
+            for (int i = 0; i < nrOfAwards; i++) {
+                int ordinal = in.readInt();
+                awards.put(ordinal == NULL_ORDINAL ? null : AWARDS[ordinal], in.readInt());
+            }
+        }
+
+        /* linked the same way as in Database.loadActor */
+        Actor actor = new Actor(name, careerDescription, awards);
+        int nrOfShows = in.readInt();
+        for (int i = 0; i < nrOfShows; i++) {
+            Show show = database.getShow(in.readInt());
+            actor.getFilmography().add(show);
+            show.getCast().add(actor);
+        }
+        actor.refreshRatingAverage();
+        return actor;
+    }
+
+    private static void writeUser(final DataOutputStream out, final User user)
+            throws IOException {
+        writeString(out, user.getUsername());
+        writeString(out, user.getSubscriptionType());
+        out.writeInt(user.getNumberOfRatings());
+
+        /* the views of a title which is not in the database have the show id -1 */
+        out.writeInt(user.getHistorySize());
+        IOException[] failure = new IOException[1];
+        user.forEachHistoryEntry((showId, views) -> {
+            try {
+                out.writeInt(showId);
+                out.writeInt(views);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        out.writeInt(user.getFavoriteMovies().size());
+        for (Show show : user.getFavoriteMovies()) {
+            out.writeInt(show.getId());
+        }
+
+        out.writeInt(user.getRatedShows().size());
+        for (Map.Entry<Show, Integer> ratedShow : user.getRatedShows().entrySet()) {
+            out.writeInt(ratedShow.getKey().getId());
+            out.writeInt(ratedShow.getValue());
+        }
+    }
+
+    private static User readUser(final DataInputStream in, final Database database)
+            throws IOException {
+        String username = readString(in);
+        User user = new User(username, readString(in));
+        user.setNumberOfRatings(in.readInt());
+
+        int historySize = in.readInt();
+        for (int i = 0; i < historySize; i++) {
+            Show show = database.getShow(in.readInt());
+            user.setViews(show, in.readInt());
+        }
+
+        int nrOfFavorites = in.readInt();
+        for (int i = 0; i < nrOfFavorites; i++) {
+            user.addFavorite(database.getShow(in.readInt()));
+        }
+
+        int nrOfRatedShows = in.readInt();
+        for (int i = 0; i < nrOfRatedShows; i++) {
+            Show show = database.getShow(in.readInt());
+            user.addRatedShow(show, in.readInt());
+        }
+
+        return user;
+    }
+
+    private static void writeGenres(final DataOutputStream out, final List<Genre> genres)
+            throws IOException {
+        out.writeInt(genres == null ? NULL_LENGTH : genres.size());
+        if (genres != null) {
+            for (Genre genre : genres) {
+                out.writeInt(genre == null ? NULL_ORDINAL : genre.ordinal());
+            }
+        }
+    }
+
+    private static ArrayList<Genre> readGenres(final DataInputStream in) throws IOException {
+        int nrOfGenres = in.readInt();
+        if (nrOfGenres == NULL_LENGTH) {
+            return null;
+        }
+
+        ArrayList<Genre> genres = new ArrayList<>(nrOfGenres);
+        for (int i = 0; i < nrOfGenres; i++) {
+            int ordinal = in.readInt();
+            genres.add(ordinal == NULL_ORDINAL ? null : GENRES[ordinal]);
+        }
+        return genres;
+    }
+
+    private static void writeRatings(final DataOutputStream out, final List<Double> ratings)
+            throws IOException {
+        out.writeInt(ratings.size());
+        for (double grade : ratings) {
+            out.writeDouble(grade);
+        }
+    }
+
+    private static List<Double> readRatings(final DataInputStream in) throws IOException {
+        int nrOfRatings = in.readInt();
+        List<Double> ratings = new ArrayList<>(nrOfRatings);
+        for (int i = 0; i < nrOfRatings; i++) {
+            ratings.add(in.readDouble());
+        }
+        return ratings;
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes (writeUTF is limited to 64K,
+     * which is not enough for some career descriptions).
+     */
+    private static void writeString(final DataOutputStream out, final String s)
+            throws IOException {
+        if (s == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
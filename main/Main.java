@@ -1,14 +1,17 @@
 package main;
 
+import actions.ActionMetrics;
 import actions.ActionsHandler;
 import checker.Checker;
 import checker.Checkstyle;
 import common.Constants;
 import fileio.ActionInputData;
+import fileio.ArrayResultWriter;
 import fileio.Input;
 import fileio.InputLoader;
-import fileio.Writer;
-import org.json.simple.JSONArray;
+import fileio.ResultWriter;
+import fileio.StreamingInputLoader;
+import fileio.StreamingResultWriter;
 
 import java.io.File;
 import java.io.IOException;
@@ -16,7 +19,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The entry point to this homework. It runs the checker that tests your implementation.
@@ -46,15 +56,18 @@ public final class Main {
         Checker checker = new Checker();
         checker.deleteFiles(outputDirectory.listFiles());
 
+        Map<String, String> files = new LinkedHashMap<>();
         for (File file : Objects.requireNonNull(directory.listFiles())) {
 
             String filepath = Constants.OUT_PATH + file.getName();
             File out = new File(filepath);
             boolean isCreated = out.createNewFile();
             if (isCreated) {
-                action(file.getAbsolutePath(), filepath);
+                files.put(file.getAbsolutePath(), filepath);
             }
         }
+        parallelAction(files, Integer.getInteger(Constants.PARALLEL_RUNS,
+                Runtime.getRuntime().availableProcessors()));
 
         checker.iterateFiles(Constants.RESULT_PATH, Constants.REF_PATH, Constants.TESTS_PATH);
         Checkstyle test = new Checkstyle();
@@ -68,18 +81,141 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
+        if (Boolean.getBoolean(Constants.STREAMING_INPUT)) {
+            streamAction(filePath1, filePath2);
+            return;
+        }
+
         InputLoader inputLoader = new InputLoader(filePath1);
         Input input = inputLoader.readData();
+        if (inputLoader.getReadStatistics() != null) {
+            System.out.println(filePath1 + ": " + inputLoader.getReadStatistics());
+        }
 
-        Writer fileWriter = new Writer(filePath2);
-        JSONArray arrayResult = new JSONArray();
+        ResultWriter resultWriter = openResultWriter(filePath2);
 
         Database database = new Database(input);
+        printLoadTimings(filePath1, database);
+        ActionMetrics metrics = ActionMetrics.fromOptions(filePath2);
+        database.setMetrics(metrics);
         ActionsHandler actionsHandler = new ActionsHandler(
                 (ArrayList<ActionInputData>) input.getCommands(),
-                fileWriter, arrayResult, database);
+                resultWriter, database);
         actionsHandler.executeActions();
 
-        fileWriter.closeJSON(arrayResult);
+        resultWriter.close();
+        if (metrics != null) {
+            metrics.close();
+        }
+    }
+
+    /**
+     * Runs {@link #action(String, String)} for every pair of input and output files.
+     * The files are independent (each run has its own database and handler), so
+     * they are processed at the same time, on a pool of the given size.
+     *
+     * @param files the output file of every input file
+     * @param threads the number of files processed at the same time
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void parallelAction(final Map<String, String> files,
+                                      final int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                runs.add(executor.submit(() -> {
+                    action(file.getKey(), file.getValue());
+                    return null;
+                }));
+            }
+
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Same as {@link #action(String, String)}, but the input file is read token by
+     * token: the database is built while the file is parsed, and each action is
+     * executed as soon as it is read.
+     *
+     * @param filePath1 for input file
+     * @param filePath2 for output file
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void streamAction(final String filePath1,
+                                    final String filePath2) throws IOException {
+        ResultWriter resultWriter = openResultWriter(filePath2);
+        ActionMetrics metrics = ActionMetrics.fromOptions(filePath2);
+
+        DatabaseBuilder builder = new DatabaseBuilder(new DatabaseBuilder.ActionListener() {
+            private ActionsHandler actionsHandler;
+
+            @Override
+            public void action(final Database database,
+                               final ActionInputData action) throws IOException {
+                if (actionsHandler == null) {
+                    database.setMetrics(metrics);
+                    actionsHandler = new ActionsHandler(new ArrayList<>(),
+                            resultWriter, database);
+                }
+                actionsHandler.executeAction(action);
+            }
+        });
+        StreamingInputLoader inputLoader = new StreamingInputLoader(filePath1, builder);
+        inputLoader.readData();
+        if (inputLoader.getReadStatistics() != null) {
+            System.out.println(filePath1 + ": " + inputLoader.getReadStatistics());
+        }
+        printLoadTimings(filePath1, builder.build());
+
+        resultWriter.close();
+        if (metrics != null) {
+            metrics.close();
+        }
+    }
+
+    /**
+     * Prints how long each phase of the construction of a database took, if the
+     * load timings option is set.
+     *
+     * @param source the file the database was built from
+     * @param database the built database
+     */
+    static void printLoadTimings(final String source, final Database database) {
+        if (Boolean.getBoolean(Constants.LOAD_TIMINGS)) {
+            System.out.println(source + ": load times (ms) " + database.getLoadTimings());
+        }
+    }
+
+    /**
+     * Opens the output file. If the streaming output option is set, every result
+     * is written to the file as soon as it is produced, instead of at the end.
+     *
+     * @param filePath the output file
+     * @return the writer of the results
+     * @throws IOException in case of exceptions to writing
+     */
+    private static ResultWriter openResultWriter(final String filePath) throws IOException {
+        if (Boolean.getBoolean(Constants.STREAMING_OUTPUT)) {
+            return new StreamingResultWriter(filePath);
+        }
+
+        return new ArrayResultWriter(filePath);
     }
 }
@@ -0,0 +1,334 @@
+package main;
+
+import actions.ActionMetrics;
+import actions.ActionsHandler;
+import common.Constants;
+import fileio.ActionInputData;
+import fileio.InputElements;
+import fileio.ResultBuffer;
+import fileio.ResultWriter;
+import fileio.StreamingResultWriter;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Long-running server over a database. A client sends one action per line, as
+ * a JSON object in the format of the actions of an input file, and receives one
+ * line for every action, with the {"id": ..., "message": ...} object of its result.
+ * An action without a result (for example, a command of an unknown user) is
+ * answered with an empty message, and an invalid line with an error message.
+ * <p>
+ * Every connection is served by its own thread (a virtual thread, if the JVM
+ * has them), and the actions of different clients run at the same time. The
+ * commands are guarded as in the actions.CommandIngestor, by the user locks,
+ * the locks of the show indexes and the atomic counters of the shows; a query
+ * holds the lock of the index it walks and a recommendation the lock of its
+ * user, so it sees the commands which ran before it, and maybe some of those
+ * which run at the same time.
+ * <p>
+ * The line {"action_type": "checkpoint"} writes a snapshot of the database
+ * and, if there is a command log, starts a new, empty log, so the log does not
+ * grow forever. The commands wait while the snapshot is written. The server
+ * also checkpoints when it is stopped, so the next start needs no replay.
+ */
+public final class Server implements Closeable {
+
+    private static final int DEFAULT_PORT = 9090;
+    private static final int INVALID_ACTION_ID = -1;
+    /**
+     * Action type of the checkpoint of the database, which is not an action of the
+     * input files
+     */
+    private static final String CHECKPOINT = "checkpoint";
+    /**
+     * Name of the metrics report of the server, in the metrics directory
+     */
+    private static final String SERVER_REPORT = "server.json";
+
+    private final Database database;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = newConnectionExecutor();
+    /**
+     * The sockets of the open connections, closed with the server
+     */
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    /**
+     * The snapshot file written by the checkpoints, or null
+     */
+    private final Path snapshot;
+    /**
+     * Commands take the read lock and checkpoints the write lock, so a snapshot
+     * holds no command which is half applied
+     */
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    /**
+     * Number of results of a query without the "number" field
+     */
+    private final int defaultNumber;
+
+    public Server(final Database database, final int port) throws IOException {
+        this(database, port, null);
+    }
+
+    public Server(final Database database, final int port, final Path snapshot)
+            throws IOException {
+        this.database = database;
+        this.snapshot = snapshot;
+        this.serverSocket = new ServerSocket(port);
+        this.defaultNumber = Math.max(Math.max(database.getShowsData().size(),
+                database.getUsersData().size()), database.getActorsData().size());
+    }
+
+    /**
+     * Starts the server on the database of an input file (its actions are ignored).
+     * If the snapshot option is set and the snapshot exists, the database is loaded
+     * from it instead, and the checkpoints write that file. If the command log
+     * option is set, the commands of the log which the snapshot does not hold
+     * are replayed on the database, and the new commands are appended to it.
+     * The server runs until the JVM is terminated (for example, with Ctrl+C); the
+     * shutdown closes the server and waits for its last checkpoint.
+     * If the metrics option is set, the metrics of the actions are reported in
+     * the server.json file of the metrics directory.
+     *
+     * @param args the input file and, optionally, the port
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        Path snapshot = optionalPath(Constants.SNAPSHOT);
+        Path log = optionalPath(Constants.COMMAND_LOG);
+
+        Database database = CommandLog.recover(snapshot, log, args[0]);
+        Main.printLoadTimings(args[0], database);
+        CommandLog commandLog = log != null ? CommandLog.open(log) : null;
+        database.setCommandLog(commandLog);
+        ActionMetrics metrics = ActionMetrics.fromOptions(SERVER_REPORT);
+        database.setMetrics(metrics);
+        Server server = new Server(database, port, snapshot);
+        Thread serving = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                serving.join();
+            } catch (IOException | InterruptedException e) {
+                /* the JVM is stopping anyway */
+            }
+        }));
+
+        try (server) {
+            System.out.println("Serving " + args[0] + " on port " + server.getPort());
+            server.serve();
+        } finally {
+            try {
+                if (snapshot != null) {
+                    server.checkpoint();
+                }
+            } finally {
+                if (commandLog != null) {
+                    commandLog.close();
+                }
+                if (metrics != null) {
+                    metrics.close();
+                }
+            }
+        }
+    }
+
+    private static Path optionalPath(final String option) {
+        String path = System.getProperty(option);
+        return path != null ? Path.of(path) : null;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     *
+     * @throws IOException in case of exceptions to accepting a connection
+     */
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                /* the server was closed */
+                return;
+            }
+
+            sockets.add(socket);
+            if (serverSocket.isClosed()) {
+                /* the server was closed before the socket was registered */
+                closeQuietly(socket);
+                return;
+            }
+            try {
+                connections.execute(() -> handle(socket));
+            } catch (RejectedExecutionException e) {
+                /* the server was closed after the socket was registered */
+                sockets.remove(socket);
+                closeQuietly(socket);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     *
+     * @throws IOException in case of exceptions to closing the server socket
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            closeQuietly(socket);
+        }
+        connections.shutdownNow();
+    }
+
+    private static void closeQuietly(final Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            /* the connection is dropped anyway */
+        }
+    }
+
+    /**
+     * Uses a virtual thread for every connection if the JVM has them (Java 21+),
+     * and a thread from a cached pool otherwise.
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handle(final Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.UTF_8))) {
+            ResultWriter out = StreamingResultWriter.lines(new BufferedWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+            /* the results are buffered, so they are sent after the locks are released */
+            ResultBuffer results = new ResultBuffer();
+            ActionsHandler handler = new ActionsHandler(new ArrayList<>(), results, database);
+            JSONParser parser = new JSONParser();
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    execute(handler, results, parser, line);
+                    results.writeTo(0, results.size(), out);
+                    results.clear();
+                }
+            }
+            out.close();
+        } catch (IOException e) {
+            /* the client is gone, or the server was closed */
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private void execute(final ActionsHandler handler, final ResultBuffer results,
+                         final JSONParser parser, final String line) throws IOException {
+        ActionInputData action;
+        try {
+            JSONObject json = (JSONObject) parser.parse(line);
+            if (CHECKPOINT.equals(json.get(Constants.ACTION_TYPE))) {
+                checkpoint(results);
+                return;
+            }
+            action = InputElements.readAction(json, defaultNumber);
+        } catch (ParseException | RuntimeException e) {
+            results.write(INVALID_ACTION_ID, "error -> invalid action: " + e);
+            return;
+        }
+        if (action == null) {
+            results.write(INVALID_ACTION_ID, "error -> unknown action type");
+            return;
+        }
+
+        boolean command = Constants.COMMAND.equals(action.getActionType());
+        if (command) {
+            checkpointLock.readLock().lock();
+        }
+        try {
+            handler.executeAction(action);
+        } catch (IOException | RuntimeException e) {
+            /* the results are buffered, so an IOException comes from the command log */
+            results.write(action.getActionId(), "error -> " + e);
+        } finally {
+            if (command) {
+                checkpointLock.readLock().unlock();
+            }
+        }
+
+        if (results.size() == 0) {
+            results.write(action.getActionId(), "");
+        }
+    }
+
+    /**
+     * Writes a snapshot of the database to the snapshot file, after the running
+     * commands and before the next ones, and resets the command log of the
+     * database, if it has one.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    public void checkpoint() throws IOException {
+        if (snapshot == null) {
+            throw new IOException("No snapshot file to checkpoint to");
+        }
+
+        checkpointLock.writeLock().lock();
+        try {
+            CommandLog log = database.getCommandLog();
+            if (log != null) {
+                log.checkpoint(database, snapshot);
+            } else {
+                DatabaseSnapshot.write(database, snapshot);
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    private void checkpoint(final ResultBuffer results) throws IOException {
+        try {
+            checkpoint();
+            results.write(INVALID_ACTION_ID, "checkpoint -> " + snapshot);
+        } catch (IOException e) {
+            results.write(INVALID_ACTION_ID, "error -> checkpoint failed: " + e);
+        }
+    }
+}
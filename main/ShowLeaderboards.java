@@ -0,0 +1,179 @@
+package main;
+
+import entertainment.Movie;
+import entertainment.Show;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Ordered indexes of the shows, one for each show query criteria, split
+ * between movies and serials. Each index contains only the shows which
+ * pass the filter of its criteria (for example, only the viewed shows are
+ * in the "most_viewed" index), sorted ascending by the criteria and then
+ * by title, so a show query is just a walk over the proper index.
+ * <p>
+ * The indexes must be updated every time a sorting key of a show changes,
+ * through {@link #update(String, Show, Runnable)}. Every index has its own
+ * read-write lock: the updates hold its write lock and the walks
+ * ({@link #walk(String, boolean, boolean, Predicate)}) its read lock, so
+ * commands and queries may run from several threads at the same time.
+ */
+public final class ShowLeaderboards {
+
+    public static final String RATINGS = "ratings";
+    public static final String FAVORITE = "favorite";
+    public static final String LONGEST = "longest";
+    public static final String MOST_VIEWED = "most_viewed";
+
+    private static final List<String> CRITERIA = List.of(RATINGS, FAVORITE, LONGEST, MOST_VIEWED);
+
+    /**
+     * An index and its lock.
+     */
+    private static final class Board {
+        private final NavigableSet<Show> shows;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        Board(final Comparator<Show> comparator) {
+            shows = new TreeSet<>(comparator);
+        }
+    }
+
+    private final Map<String, Board> movieBoards = new HashMap<>();
+    private final Map<String, Board> serialBoards = new HashMap<>();
+
+    /**
+     * Builds the indexes of every criteria for the given shows.
+     *
+     * @param shows the shows of the database
+     */
+    public ShowLeaderboards(final Collection<Show> shows) {
+        for (String criteria : CRITERIA) {
+            /* equal shows (same key and title) are told apart by their id */
+            Comparator<Show> comparator = getComparator(criteria)
+                    .thenComparingInt(Show::getId);
+            movieBoards.put(criteria, new Board(comparator));
+            serialBoards.put(criteria, new Board(comparator));
+        }
+
+        for (Show show : shows) {
+            for (String criteria : CRITERIA) {
+                add(criteria, show);
+            }
+        }
+    }
+
+    /**
+     * Returns the comparator used by the show query with the given criteria.
+     *
+     * @param criteria the criteria of the query
+     * @return the ascending comparator, or null if the criteria is not indexed
+     */
+    public static Comparator<Show> getComparator(final String criteria) {
+        return switch (criteria) {
+            case RATINGS -> Comparator.comparing(Show::getRatingAverage)
+                    .thenComparing(Show::toString);
+            case FAVORITE -> Comparator.comparing(Show::getNrOfAddsAtFavorites)
+                    .thenComparing(Show::toString);
+            case LONGEST -> Comparator.comparing(Show::getDuration)
+                    .thenComparing(Show::toString);
+            case MOST_VIEWED -> Comparator.comparing(Show::getNrOfViews)
+                    .thenComparing(Show::toString);
+            default -> null;
+        };
+    }
+
+    /**
+     * Checks if a show passes the filter of the show query with the given criteria.
+     *
+     * @param criteria the criteria of the query
+     * @param show the show to be checked
+     * @return true if the show has a strictly positive value for the criteria
+     */
+    public static boolean isRanked(final String criteria, final Show show) {
+        return switch (criteria) {
+            case RATINGS -> show.getRatingAverage() > 0;
+            case FAVORITE -> show.getNrOfAddsAtFavorites() > 0;
+            case LONGEST -> show.getDuration() > 0;
+            case MOST_VIEWED -> show.getNrOfViews() > 0;
+            default -> false;
+        };
+    }
+
+    /**
+     * Checks if there is an index for the given criteria.
+     *
+     * @param criteria the criteria of the query
+     * @return true if the criteria is indexed
+     */
+    public boolean hasCriteria(final String criteria) {
+        return movieBoards.containsKey(criteria);
+    }
+
+    /**
+     * Walks the index of the given criteria, while holding its read lock, until
+     * the visitor stops the walk or all the ranked shows are visited.
+     *
+     * @param criteria the criteria of the query
+     * @param movies true for the movies index, false for the serials index
+     * @param ascending the direction of the walk
+     * @param visitor called for every show, in order; returns false to stop the walk
+     */
+    public void walk(final String criteria, final boolean movies, final boolean ascending,
+                     final Predicate<Show> visitor) {
+        Board board = movies ? movieBoards.get(criteria) : serialBoards.get(criteria);
+        board.lock.readLock().lock();
+        try {
+            Iterator<Show> iterator = ascending ? board.shows.iterator()
+                    : board.shows.descendingIterator();
+            while (iterator.hasNext()) {
+                if (!visitor.test(iterator.next())) {
+                    return;
+                }
+            }
+        } finally {
+            board.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a change to a show which modifies its sorting key for the given
+     * criteria, keeping the index of that criteria ordered. The change is made
+     * while holding the write lock of the index.
+     *
+     * @param criteria the criteria whose key is changed
+     * @param show the changed show
+     * @param change the change to be applied
+     */
+    public void update(final String criteria, final Show show, final Runnable change) {
+        Board board = board(criteria, show);
+        board.lock.writeLock().lock();
+        try {
+            board.shows.remove(show);
+            change.run();
+            add(criteria, show);
+        } finally {
+            board.lock.writeLock().unlock();
+        }
+    }
+
+    private void add(final String criteria, final Show show) {
+        if (isRanked(criteria, show)) {
+            board(criteria, show).shows.add(show);
+        }
+    }
+
+    private Board board(final String criteria, final Show show) {
+        return show instanceof Movie ? movieBoards.get(criteria) : serialBoards.get(criteria);
+    }
+}
@@ -1,38 +1,174 @@
 package user;
 
 import entertainment.Show;
+import utils.IntIntHashMap;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * User class containing all related information.
+ * The history is a primitive map (show id -> number of views), the favorites
+ * are also kept in a hash set and the rated shows in a hash map (show -> last
+ * rated season), so every membership check is O(1).
+ * <p>
+ * A user is not thread-safe: the commands and the recommendations which run
+ * on several threads hold the lock given by Database.getUserLock while they
+ * use the user.
  */
 public final class User {
 
+    /**
+     * History key used for the views of a title which is not in the database.
+     */
+    private static final int UNKNOWN_SHOW_ID = -1;
+
+    private int id;
     private final String username;
     private final String subscriptionType;
-    private final Map<Show, Integer> history;
-    private final ArrayList<Show> favoriteMovies;
+    private final IntIntHashMap history;
+    private final List<Show> favoriteMovies;
+    private final Set<Show> favoriteSet;
     private int numberOfRatings;
+    /**
+     * The last rated season of every rated show (0 for a movie)
+     */
     private final Map<Show, Integer> ratedShows;
 
     public User(final String username, final String subscriptionType) {
+        this.id = -1;
         this.username = username;
         this.subscriptionType = subscriptionType;
-        this.history = new HashMap<>();
+        this.history = new IntIntHashMap();
         this.favoriteMovies = new ArrayList<>();
+        this.favoriteSet = new HashSet<>();
         this.numberOfRatings = 0;
         this.ratedShows = new HashMap<>();
     }
 
-    public ArrayList<Show> getFavoriteMovies() {
-        return favoriteMovies;
+    /**
+     * Checks if the show is in the history of the user.
+     *
+     * @param show the show to be checked
+     * @return true if the user has seen the show
+     */
+    public boolean hasSeen(final Show show) {
+        return history.containsKey(historyKey(show));
+    }
+
+    /**
+     * Returns the number of views of a show by the user.
+     *
+     * @param show the show
+     * @return the number of views, or 0 if the show is not seen
+     */
+    public int getViews(final Show show) {
+        return history.get(historyKey(show), 0);
+    }
+
+    /**
+     * Adds a view of the show in the history of the user.
+     *
+     * @param show the viewed show
+     * @return the total number of views of the show by the user
+     */
+    public int addView(final Show show) {
+        return history.addTo(historyKey(show), 1);
+    }
+
+    /**
+     * Sets the number of views of the show in the history of the user.
+     *
+     * @param show the viewed show
+     * @param views the number of views
+     */
+    public void setViews(final Show show, final int views) {
+        history.put(historyKey(show), views);
+    }
+
+    private static int historyKey(final Show show) {
+        return show == null ? UNKNOWN_SHOW_ID : show.getId();
+    }
+
+    /**
+     * Checks if the show is in the favorites list of the user.
+     *
+     * @param show the show to be checked
+     * @return true if the show is a favorite of the user
+     */
+    public boolean isFavorite(final Show show) {
+        return favoriteSet.contains(show);
+    }
+
+    /**
+     * Adds the show at the end of the favorites list of the user.
+     *
+     * @param show the favorite show
+     */
+    public void addFavorite(final Show show) {
+        favoriteMovies.add(show);
+        favoriteSet.add(show);
+    }
+
+    /**
+     * Checks if the last rating of the user for the show was given to this
+     * season. Only the last rated season of a show is kept, so a season rated
+     * before another season of the same serial may be rated again.
+     *
+     * @param show the show to be checked
+     * @param season the season to be checked (0 for a movie)
+     * @return true if the last rating of the show was given to this season
+     */
+    public boolean hasRated(final Show show, final int season) {
+        Integer lastSeason = ratedShows.get(show);
+        return lastSeason != null && lastSeason == season;
+    }
+
+    /**
+     * Marks the season of the show as its last rated season.
+     *
+     * @param show the rated show
+     * @param season the rated season (0 for a movie)
+     */
+    public void addRatedShow(final Show show, final int season) {
+        ratedShows.put(show, season);
+    }
+
+    public List<Show> getFavoriteMovies() {
+        return Collections.unmodifiableList(favoriteMovies);
+    }
+
+    /**
+     * Applies an action on every entry of the history (show id, number of views).
+     * The views of the titles which are not in the database have the show id -1.
+     *
+     * @param consumer the action
+     */
+    public void forEachHistoryEntry(final IntIntHashMap.EntryConsumer consumer) {
+        history.forEach(consumer);
+    }
+
+    public int getHistorySize() {
+        return history.size();
+    }
+
+    /**
+     * Returns the dense id of the user, which is its position in the
+     * database (-1 if the user is not part of a database).
+     *
+     * @return the id of the user
+     */
+    public int getId() {
+        return id;
     }
 
-    public Map<Show, Integer> getHistory() {
-        return history;
+    public void setId(final int id) {
+        this.id = id;
     }
 
     public String getUsername() {
@@ -44,7 +180,7 @@ public final class User {
     }
 
     public Map<Show, Integer> getRatedShows() {
-        return ratedShows;
+        return Collections.unmodifiableMap(ratedShows);
     }
 
     public String getSubscriptionType() {
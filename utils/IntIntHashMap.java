@@ -0,0 +1,160 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Hash map with primitive int keys and values (open addressing, linear probing).
+ * It avoids the boxed keys, values and entry objects of a HashMap, so it is used
+ * for the big per-user structures, such as the history of views.
+ * <p>
+ * Integer.MIN_VALUE is reserved and cannot be used as a key.
+ */
+public final class IntIntHashMap {
+
+    /**
+     * Action applied on each entry of the map.
+     */
+    public interface EntryConsumer {
+        /**
+         * Called for an entry of the map.
+         *
+         * @param key the key of the entry
+         * @param value the value of the entry
+         */
+        void accept(int key, int value);
+    }
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIntHashMap(final int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < 2 * expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @param defaultValue the value returned when the key is missing
+     * @return the value of the key, or defaultValue if the key is missing
+     */
+    public int get(final int key, final int defaultValue) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? defaultValue : values[slot];
+    }
+
+    /**
+     * Checks if the map contains a key.
+     *
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(final int key) {
+        return keys[find(key)] != EMPTY;
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key the key
+     * @param value the new value
+     */
+    public void put(final int key, final int value) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            insert(slot, key, value);
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Adds a delta to the value of a key. A missing key is inserted with the delta.
+     *
+     * @param key the key
+     * @param delta the value to be added
+     * @return the new value of the key
+     */
+    public int addTo(final int key, final int delta) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            insert(slot, key, delta);
+            return delta;
+        }
+
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Applies an action on every entry of the map, in no particular order.
+     *
+     * @param consumer the action
+     */
+    public void forEach(final EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int find(final int key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Reserved key: " + key);
+        }
+
+        int mask = keys.length - 1;
+        int slot = (key * HASH_MULTIPLIER) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void insert(final int slot, final int key, final int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+
+        /* the table is kept at most half full */
+        if (2 * size > keys.length) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(2 * keys.length);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int newSlot = find(oldKeys[i]);
+                    keys[newSlot] = oldKeys[i];
+                    values[newSlot] = oldValues[i];
+                    size++;
+                }
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+}
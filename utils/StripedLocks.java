@@ -0,0 +1,40 @@
+package utils;
+
+/**
+ * A fixed set of lock objects, shared by many keys. A key is always mapped
+ * to the same lock, so the holders of a lock are serialized on every key of
+ * its stripe, while keys of different stripes are not blocked by each other.
+ */
+public final class StripedLocks {
+
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private final Object[] locks;
+
+    /**
+     * Creates the locks.
+     *
+     * @param stripes the minimum number of locks (rounded up to a power of two)
+     */
+    public StripedLocks(final int stripes) {
+        int capacity = 1;
+        while (capacity < stripes) {
+            capacity <<= 1;
+        }
+
+        locks = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the lock of a key, to be used in a synchronized block.
+     *
+     * @param key the key
+     * @return the lock of the stripe of the key
+     */
+    public Object get(final int key) {
+        return locks[(key * HASH_MULTIPLIER) & (locks.length - 1)];
+    }
+}
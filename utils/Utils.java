@@ -9,8 +9,14 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The class contains static methods that helps with parsing.
@@ -147,36 +153,75 @@ public final class Utils {
     }
 
     /**
-     * Converts a string to a Show object.
+     * Converts a string to a Show object, using the title index of the database.
      *
-     * @param showData the shows database
+     * @param showIndex the shows index (title -> Show)
      * @param showName the name of the show
-     * @return a Show object
+     * @return a Show object, or null if there is no show with that title
      */
-    public static Show stringToShow(final ArrayList<Show> showData, final String showName) {
-        for (Show current : showData) {
-            if (current.getTitle().equals(showName)) {
-                return current;
-            }
-        }
-
-        return null;
+    public static Show stringToShow(final Map<String, Show> showIndex, final String showName) {
+        return showIndex.get(showName);
     }
 
     /**
-     * Converts a string to a User object.
+     * Converts a string to a User object, using the username index of the database.
      *
-     * @param userData the users database
+     * @param userIndex the users index (username -> User)
      * @param userName the name of the user
-     * @return a User object
+     * @return a User object, or null if there is no user with that name
+     */
+    public static User stringToUser(final Map<String, User> userIndex, final String userName) {
+        return userIndex.get(userName);
+    }
+
+    /**
+     * Selects the first k elements of a stream, in the order given by the comparator.
+     * When k is smaller than the number of candidates, a bounded heap of size k is
+     * used instead of sorting all the candidates. Otherwise, the candidates are sorted.
+     * Equal elements keep their encounter order, exactly as a stable sort followed
+     * by a limit would do.
+     *
+     * @param candidates the elements to be selected from
+     * @param comparator the order of the elements
+     * @param k the maximum number of elements to be selected
+     * @param <T> the type of the elements
+     * @return a sorted list with at most k elements
      */
-    public static User stringToUser(final ArrayList<User> userData, final String userName) {
-        for (User current : userData) {
-            if (current.getUsername().equals(userName)) {
-                return current;
+    public static <T> List<T> topK(final Stream<T> candidates,
+                                   final Comparator<? super T> comparator, final int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<T> elements = candidates.collect(Collectors.toList());
+        if (k >= elements.size()) {
+            elements.sort(comparator);
+            return elements;
+        }
+
+        /* the heap keeps positions in the candidates list, so that equal
+         * elements are ordered by their position; its head is the worst one */
+        Comparator<Integer> positionComparator = (i, j) -> {
+            int result = comparator.compare(elements.get(i), elements.get(j));
+            return result != 0 ? result : Integer.compare(i, j);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k, positionComparator.reversed());
+        for (int i = 0; i < elements.size(); i++) {
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (positionComparator.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
             }
         }
 
-        return null;
+        List<Integer> positions = new ArrayList<>(heap);
+        positions.sort(positionComparator);
+
+        List<T> selected = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            selected.add(elements.get(position));
+        }
+        return selected;
     }
 }